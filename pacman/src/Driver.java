@@ -1,10 +1,32 @@
 package src;
 
+import src.autoMove.StepFinder;
 import src.mapeditor.editor.Controller;
+import src.mapeditor.util.BinaryMapConverter;
+import src.mapeditor.util.GameMap;
+import src.mapeditor.util.MapCache;
+import src.mapeditor.util.MapCompiler;
+import src.mapeditor.util.MapConverter;
+import src.mapeditor.util.MapLoader;
+import src.simulation.BatchRunner;
+import src.simulation.HeadlessGame;
+import src.utility.BinarySink;
+import src.utility.FileSink;
+import src.utility.GameCallback;
+import src.utility.GzipSink;
+import src.utility.PropertiesLoader;
+
+import java.io.File;
+import java.util.List;
+import java.util.Properties;
 
 public class Driver {
     private static final int VALID_ARGS_LENGTH = 1;
     private static final String XML_SUFFIX = ".xml";
+    private static final String HEADLESS_FLAG = "-headless";
+    private static final String BATCH_FLAG = "-batch";
+    private static final String COMPILE_FLAG = "-compile";
+    private static final int BATCH_ARGS_LENGTH = 5;
 
     /**
      * Starting point
@@ -12,7 +34,17 @@ public class Driver {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        if (args.length == VALID_ARGS_LENGTH) {
+        if (args.length == 2 && args[0].equals(HEADLESS_FLAG)) {
+            // Play the map folder without a window
+            runHeadless(args[1]);
+        } else if ((args.length == BATCH_ARGS_LENGTH || args.length == BATCH_ARGS_LENGTH + 1)
+                && args[0].equals(BATCH_FLAG)) {
+            // Seed sweep over a map folder: -batch <folder> <fromSeed> <toSeed> <threads> [logFolder]
+            runBatch(args);
+        } else if (args.length == 3 && args[0].equals(COMPILE_FLAG)) {
+            // Compile the XML maps of a folder: -compile <xmlFolder> <outputFolder>
+            MapCompiler.main(new String[]{args[1], args[2]});
+        } else if (args.length == VALID_ARGS_LENGTH) {
             // Check the type of the argument
             if (args[0].endsWith(XML_SUFFIX)) {
                 // An existing map file
@@ -28,4 +60,87 @@ public class Driver {
             System.out.println("Invalid command line argument, please try again.");
         }
     }
+
+    /**
+     * Play a map folder with the headless engine and print the result
+     *
+     * @param path path to the map folder
+     */
+    private static void runHeadless(String path) {
+        List<GameMap> maps = loadValidMaps(path);
+        if (maps == null) {
+            return;
+        }
+        Properties properties = PropertiesLoader.loadPropertiesFile(Controller.DEFAULT_PROPERTIES_FILE);
+        int seed = Integer.parseInt(properties.getProperty("seed"));
+        String movingMethod = properties.getProperty("PacMan.movingMethod", StepFinder.DIRECT);
+        System.out.println(new HeadlessGame(maps, seed, HeadlessGame.DEFAULT_MAX_TICKS, movingMethod).run());
+    }
+
+    /**
+     * Play every map of a folder with every seed of a range and print the aggregate results
+     *
+     * @param args the folder, first seed, last seed, number of threads and optionally a folder for
+     *             one log per game
+     */
+    private static void runBatch(String[] args) {
+        int fromSeed;
+        int toSeed;
+        int threads;
+        try {
+            fromSeed = Integer.parseInt(args[2]);
+            toSeed = Integer.parseInt(args[3]);
+            threads = Integer.parseInt(args[4]);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid command line argument, please try again.");
+            return;
+        }
+        if (toSeed < fromSeed || threads < 1) {
+            System.out.println("Invalid command line argument, please try again.");
+            return;
+        }
+        File logFolder = null;
+        if (args.length > BATCH_ARGS_LENGTH) {
+            logFolder = new File(args[BATCH_ARGS_LENGTH]);
+            if (!logFolder.isDirectory() && !logFolder.mkdirs()) {
+                System.out.println("Cannot create the log folder " + logFolder + ".");
+                return;
+            }
+        }
+        List<GameMap> maps = loadValidMaps(args[1]);
+        if (maps == null) {
+            return;
+        }
+        Properties properties = PropertiesLoader.loadPropertiesFile(Controller.DEFAULT_PROPERTIES_FILE);
+        String movingMethod = properties.getProperty("PacMan.movingMethod", StepFinder.DIRECT);
+        BatchRunner.LogFactory logFactory = null;
+        if (logFolder != null) {
+            // One log per game, binary if asked for, compressed text otherwise
+            File folder = logFolder;
+            boolean isBinary = "binary".equals(properties.getProperty("Log.sink"));
+            logFactory = (mapIndex, seed) -> isBinary
+                    ? new BinarySink(new File(folder, "game-" + mapIndex + "-" + seed + ".bin"))
+                    : new GzipSink(new File(folder, "game-" + mapIndex + "-" + seed + ".log.gz"));
+        }
+        System.out.println(new BatchRunner(maps, fromSeed, toSeed, threads, HeadlessGame.DEFAULT_MAX_TICKS,
+                movingMethod, logFactory).run());
+    }
+
+    /**
+     * Load a map folder through the game and level checks, from the compiled maps that are up to date
+     *
+     * @param path path to the map folder
+     * @return the maps in level order, or null if the folder is invalid
+     */
+    private static List<GameMap> loadValidMaps(String path) {
+        MapConverter mapConverter = BinaryMapConverter.forFolder(path);
+        MapLoader mapLoader = new MapLoader(mapConverter, () -> new FileSink(GameCallback.LOG_FILE_PATH),
+                Runtime.getRuntime().availableProcessors(), new MapCache(new File(MapCache.DEFAULT_FOLDER)));
+        List<GameMap> maps = mapLoader.loadMaps(path);
+        if (maps == null || !mapLoader.isPassedLevelCheck()) {
+            System.out.println("Invalid map folder, see Log.txt for details.");
+            return null;
+        }
+        return maps;
+    }
 }
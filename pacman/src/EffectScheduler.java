@@ -0,0 +1,104 @@
+package src;
+
+/**
+ * Runs timed game effects, such as monster freezes, after a number of simulation
+ * ticks. It is a hashed timer wheel: an effect is put in the slot of its deadline
+ * and each tick only looks at one slot, so no thread is needed and the timing
+ * follows the simulation whatever its speed, and stops while it is paused.
+ * <p>
+ * One scheduler belongs to one game and is ticked from the simulation thread.
+ */
+public class EffectScheduler {
+    // Power of two so the slot of a tick is a mask. Longer delays wait extra rounds.
+    private static final int NB_SLOTS = 64;
+    private static final int SLOT_MASK = NB_SLOTS - 1;
+
+    private final Effect[] slots = new Effect[NB_SLOTS];
+    // Finished effects kept for reuse
+    private Effect freeEffects = null;
+    private long tick = 0;
+    private int size = 0;
+
+    private static class Effect {
+        private long deadline;
+        private Runnable action;
+        private Effect next;
+    }
+
+    /**
+     * Run an action once the given number of ticks has passed
+     *
+     * @param delay  number of ticks to wait, at least one
+     * @param action the effect to run on the simulation thread
+     */
+    public synchronized void schedule(int delay, Runnable action) {
+        if (action == null) {
+            throw new IllegalArgumentException("No action to schedule");
+        }
+        Effect effect = freeEffects;
+        if (effect == null) {
+            effect = new Effect();
+        } else {
+            freeEffects = effect.next;
+        }
+        effect.deadline = tick + Math.max(delay, 1);
+        effect.action = action;
+        int slot = (int) (effect.deadline & SLOT_MASK);
+        effect.next = slots[slot];
+        slots[slot] = effect;
+        size++;
+    }
+
+    /**
+     * End the current tick and run the effects that are due
+     */
+    public synchronized void tick() {
+        tick++;
+        int slot = (int) (tick & SLOT_MASK);
+        Effect effect = slots[slot];
+        // Detach the slot first, so effects scheduled by an action land in a clean list
+        slots[slot] = null;
+        while (effect != null) {
+            Effect next = effect.next;
+            if (effect.deadline <= tick) {
+                Runnable action = effect.action;
+                effect.action = null;
+                effect.next = freeEffects;
+                freeEffects = effect;
+                size--;
+                action.run();
+            } else {
+                // Due in a later round of the wheel
+                effect.next = slots[slot];
+                slots[slot] = effect;
+            }
+            effect = next;
+        }
+    }
+
+    /**
+     * Drop all pending effects without running them
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < NB_SLOTS; i++) {
+            Effect effect = slots[i];
+            while (effect != null) {
+                Effect next = effect.next;
+                effect.action = null;
+                effect.next = freeEffects;
+                freeEffects = effect;
+                effect = next;
+            }
+            slots[i] = null;
+        }
+        size = 0;
+    }
+
+    public synchronized long getTick() {
+        return tick;
+    }
+
+    public synchronized int getNbPending() {
+        return size;
+    }
+}
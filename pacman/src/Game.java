@@ -4,6 +4,8 @@ import ch.aplu.jgamegrid.Actor;
 import ch.aplu.jgamegrid.GGBackground;
 import ch.aplu.jgamegrid.GameGrid;
 import ch.aplu.jgamegrid.Location;
+import src.autoMove.DistanceFieldMethod;
+import src.autoMove.StepFinder;
 import src.mapeditor.editor.Constants;
 import src.mapeditor.editor.Controller;
 import src.mapeditor.util.GameMap;
@@ -14,24 +16,31 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 
 public class Game extends GameGrid {
-    private final static int nbHorzCells = 20;
-    private final static int nbVertCells = 11;
+    private final static int CELL_SIZE = 20;
     protected PacManGameGrid grid;
 
     protected PacActor pacActor = new PacActor(this);
     private List<Monster> monsters = new ArrayList<>();
 
-    private ArrayList<Location> pillAndItemLocations = new ArrayList<>();
     private ArrayList<Actor> iceCubes = new ArrayList<>();
     private ArrayList<Actor> goldPieces = new ArrayList<>();
     private GameCallback gameCallback;
+    private final EffectScheduler effectScheduler = new EffectScheduler();
     private Properties properties;
     private int seed = 30006;
 
     private GameMap currentMap = null;
 
+    // End of level detection, driven by the simulation thread
+    private CountDownLatch levelOver;
+    private volatile boolean isLevelRunning = false;
+    private volatile boolean hasPacmanBeenHit;
+    private volatile boolean hasPacmanEatAllPills;
+    private int maxPillsAndItems;
+
     public GameMap getCurrentMap() {
         return currentMap;
     }
@@ -43,13 +52,14 @@ public class Game extends GameGrid {
      * @param properties   properties of the game
      * @param maps         maps to be used
      * @param controller   controller to be used
-     * @param mapType      map type
-     * @param path         path to the map
+     * @param mapType      map type: 0 - maps of a folder; 1 - map played from the editor
+     * @param path         path to the map folder, null for a map played from the editor
      */
     public Game(GameCallback gameCallback, Properties properties, List<GameMap> maps, Controller controller,
                 int mapType, String path) {
 
-        super(nbHorzCells, nbVertCells, 20, false);
+        // The window fits the largest level, smaller ones leave the rest of it empty
+        super(maxNbHorzCells(maps), maxNbVertCells(maps), CELL_SIZE, false);
         this.gameCallback = gameCallback;
         this.properties = properties;
         setSimulationPeriod(100);
@@ -57,13 +67,17 @@ public class Game extends GameGrid {
 
         //Setup for auto test
         pacActor.setAuto(Boolean.parseBoolean(properties.getProperty("PacMan.isAuto")));
+        if (StepFinder.DISTANCE_FIELD.equals(properties.getProperty("PacMan.movingMethod"))) {
+            pacActor.setMovingMethod(new DistanceFieldMethod());
+        }
 
         // Run the game for each map
         for (int i = 0; i < maps.size(); i++) {
             GameMap map = maps.get(i);
             this.currentMap = map;
             // maps to be used
-            grid = new PacManGameGrid(nbHorzCells, nbVertCells, map.getMap());
+            grid = new PacManGameGrid(map.getNbHorzCells(), map.getNbVertCells(), map.getMap());
+            effectScheduler.clear();
 
             setupActorLocations(map);
 
@@ -82,24 +96,24 @@ public class Game extends GameGrid {
             setKeyRepeatPeriod(150);
 
 
-            //Run the game
+            maxPillsAndItems = countPillsAndItems();
+            hasPacmanBeenHit = false;
+            hasPacmanEatAllPills = false;
+            levelOver = new CountDownLatch(1);
+            isLevelRunning = true;
+
+            //Run the game and wait until the simulation reports the end of the level
             doRun();
             show();
-            boolean hasPacmanBeenHit;
-            boolean hasPacmanEatAllPills;
-            setupPillAndItemsLocations();
-            int maxPillsAndItems = countPillsAndItems();
-
-            do {
-                hasPacmanBeenHit = false;
-                for (Monster monster : monsters) {
-                    if (monster.getLocation().equals(pacActor.getLocation())) {
-                        hasPacmanBeenHit = true;
-                    }
-                }
-                hasPacmanEatAllPills = pacActor.getNbPills() >= maxPillsAndItems;
-                delay(10);
-            } while (!hasPacmanBeenHit && !hasPacmanEatAllPills);
+            try {
+                levelOver.await();
+            } catch (InterruptedException e) {
+                isLevelRunning = false;
+                doPause();
+                gameCallback.close();
+                Thread.currentThread().interrupt();
+                return;
+            }
             delay(120);
 
             Location loc = pacActor.getLocation();
@@ -116,6 +130,7 @@ public class Game extends GameGrid {
                 addActor(new Actor("sprites/explosion3.gif"), loc);
                 setTitle(title);
                 gameCallback.endOfGame(title);
+                gameCallback.close();
                 doPause();
                 hide();
                 // Create a new thread to run the map editor
@@ -125,7 +140,7 @@ public class Game extends GameGrid {
                 } else {
                     thread = new Thread(() -> {
                         controller.init(Constants.MAP_WIDTH, Constants.MAP_HEIGHT);
-                        controller.loadSingleFile(path);
+                        controller.loadPlayedMap();
                     });
                 }
                 thread.start();
@@ -135,6 +150,7 @@ public class Game extends GameGrid {
                 title = "YOU WIN";
                 setTitle(title);
                 gameCallback.endOfGame(title);
+                gameCallback.close();
                 doPause();
                 hide();
                 // Create a new thread to run the map editor
@@ -144,7 +160,7 @@ public class Game extends GameGrid {
                 } else {
                     thread = new Thread(() -> {
                         controller.init(Constants.MAP_WIDTH, Constants.MAP_HEIGHT);
-                        controller.loadSingleFile(path);
+                        controller.loadPlayedMap();
                     });
                 }
                 thread.start();
@@ -155,6 +171,39 @@ public class Game extends GameGrid {
         }
     }
 
+    /**
+     * Called by JGameGrid at the start of every simulation cycle, after all actors
+     * of the previous cycle have moved. Ends the previous tick of the timed effects
+     * and checks the end of the current level.
+     */
+    @Override
+    public void act() {
+        if (!isLevelRunning) {
+            return;
+        }
+        effectScheduler.tick();
+        for (Monster monster : monsters) {
+            if (monster.getLocation().equals(pacActor.getLocation())) {
+                hasPacmanBeenHit = true;
+            }
+        }
+        hasPacmanEatAllPills = pacActor.getNbPills() >= maxPillsAndItems;
+        if (hasPacmanBeenHit || hasPacmanEatAllPills) {
+            // Stop the actors in the cycle the level ended and wake up the game thread
+            isLevelRunning = false;
+            doPause();
+            levelOver.countDown();
+        }
+    }
+
+    public PacManGameGrid getGrid() {
+        return grid;
+    }
+
+    public EffectScheduler getEffectScheduler() {
+        return effectScheduler;
+    }
+
     public GameCallback getGameCallback() {
         return gameCallback;
     }
@@ -183,49 +232,14 @@ public class Game extends GameGrid {
     }
 
     private int countPillsAndItems() {
-        int pillsAndItemsCount = 0;
-        for (int y = 0; y < nbVertCells; y++) {
-            for (int x = 0; x < nbHorzCells; x++) {
-                Location location = new Location(x, y);
-                int a = grid.getCell(location);
-                if (a == 1) { // Pill
-                    pillsAndItemsCount++;
-                } else if (a == 3) { // Gold
-                    pillsAndItemsCount++;
-                }
-            }
-        }
-
-        return pillsAndItemsCount;
-    }
-
-    public ArrayList<Location> getPillAndItemLocations() {
-        return pillAndItemLocations;
-    }
-
-    private void setupPillAndItemsLocations() {
-        for (int y = 0; y < nbVertCells; y++) {
-            for (int x = 0; x < nbHorzCells; x++) {
-                Location location = new Location(x, y);
-                int a = grid.getCell(location);
-                if (a == 1) {
-                    pillAndItemLocations.add(location);
-                }
-                if (a == 3) {
-                    pillAndItemLocations.add(location);
-                }
-                if (a == 4) {
-                    pillAndItemLocations.add(location);
-                }
-            }
-        }
+        return grid.getCellCount(PacManGameGrid.PILL) + grid.getCellCount(PacManGameGrid.GOLD);
     }
 
     private void drawGrid(GGBackground bg) {
         bg.clear(Color.gray);
         bg.setPaintColor(Color.white);
-        for (int y = 0; y < nbVertCells; y++) {
-            for (int x = 0; x < nbHorzCells; x++) {
+        for (int y = 0; y < grid.getNbVertCells(); y++) {
+            for (int x = 0; x < grid.getNbHorzCells(); x++) {
                 bg.setPaintColor(Color.white);
                 Location location = new Location(x, y);
                 int a = grid.getCell(location);
@@ -300,10 +314,26 @@ public class Game extends GameGrid {
     }
 
     public int getNumHorzCells() {
-        return this.nbHorzCells;
+        return grid.getNbHorzCells();
     }
 
     public int getNumVertCells() {
-        return this.nbVertCells;
+        return grid.getNbVertCells();
+    }
+
+    private static int maxNbHorzCells(List<GameMap> maps) {
+        int max = 1;
+        for (GameMap map : maps) {
+            max = Math.max(max, map.getNbHorzCells());
+        }
+        return max;
+    }
+
+    private static int maxNbVertCells(List<GameMap> maps) {
+        int max = 1;
+        for (GameMap map : maps) {
+            max = Math.max(max, map.getNbVertCells());
+        }
+        return max;
     }
 }
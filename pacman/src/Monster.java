@@ -4,7 +4,6 @@ package src;
 
 import ch.aplu.jgamegrid.*;
 
-import java.awt.Color;
 import java.util.*;
 
 public class Monster extends Actor {
@@ -13,6 +12,7 @@ public class Monster extends Actor {
     private ArrayList<Location> visitedList = new ArrayList<>();
     private final int listLength = 10;
     private boolean stopMoving = false;
+    private long stopMovingUntil = 0;
     private int seed = 0;
     private Random randomiser = new Random(0);
 
@@ -22,17 +22,23 @@ public class Monster extends Actor {
         this.type = type;
     }
 
+    /**
+     * Freeze the monster for a number of seconds of game time
+     *
+     * @param seconds how long the monster stays still
+     */
     public void stopMoving(int seconds) {
-        this.stopMoving = true;
-        Timer timer = new Timer(); // Instantiate Timer Object
+        EffectScheduler effects = game.getEffectScheduler();
         int SECOND_TO_MILLISECONDS = 1000;
-        final Monster monster = this;
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                monster.stopMoving = false;
+        int ticks = seconds * SECOND_TO_MILLISECONDS / game.getSimulationPeriod();
+        // A longer freeze given meanwhile is not cut short by the end of this one
+        stopMovingUntil = Math.max(stopMovingUntil, effects.getTick() + ticks);
+        this.stopMoving = true;
+        effects.schedule(ticks, () -> {
+            if (effects.getTick() >= stopMovingUntil) {
+                stopMoving = false;
             }
-        }, seconds * SECOND_TO_MILLISECONDS);
+        });
     }
 
     public void setSeed(int seed) {
@@ -57,9 +63,7 @@ public class Monster extends Actor {
         double oldDirection = getDirection();
         Location locationNow = this.getLocation();
         // If the monster is on a portal, move it to the other portal.
-        if (onPortal(locationNow)) {
-            movePortal(locationNow);
-        }
+        movePortal(locationNow);
 
         // Walking approach:
         // TX5: Determine direction to pacActor and try to move in that direction. Otherwise, random walk.
@@ -122,35 +126,19 @@ public class Monster extends Actor {
     }
 
     private boolean canMove(Location location) {
-        Color c = getBackground().getColor(location);
-        return !c.equals(Color.gray) && location.getX() < game.getNumHorzCells()
-                && location.getX() >= 0 && location.getY() < game.getNumVertCells() && location.getY() >= 0;
-    }
-
-    /**
-     * Check if the monster is on a portal.
-     * @param location The location of the monster.
-     * @return True if the monster is on a portal, false otherwise.
-     */
-    private boolean onPortal(Location location) {
-        Color c = getBackground().getColor(location);
-        return c.equals(Color.black);
+        return game.getGrid().canMove(location.x, location.y);
     }
 
     /**
-     * Move the monster to the other portal.
+     * Move the monster to the other portal if it is on a portal.
      * @param location The location of the monster.
      */
     private void movePortal(Location location) {
-        Map<String, java.util.List<int[]>> portals = game.getCurrentMap().getPortals();
-        for (Map.Entry<String, java.util.List<int[]>> entry : portals.entrySet()) {
-            List<int[]> locs = entry.getValue();
-            if (location.getX() == locs.get(0)[1] && location.getY() == locs.get(0)[0]) {
-                // Set the location to the second loc
-                setLocation(new Location(locs.get(1)[1], locs.get(1)[0]));
-            } else if (location.getX() == locs.get(1)[1] && location.getY() == locs.get(1)[0]) {
-                // Set the location to the first loc
-                setLocation(new Location(locs.get(0)[1], locs.get(0)[0]));
+        PacManGameGrid grid = game.getGrid();
+        if (grid.isInside(location.x, location.y)) {
+            int partner = grid.getPortalPartner(grid.getCellIndex(location.x, location.y));
+            if (partner >= 0) {
+                setLocation(grid.toLocation(partner));
             }
         }
     }
@@ -11,8 +11,6 @@ import src.autoMove.MovingMethod;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 /**
@@ -43,6 +41,10 @@ public class PacActor extends Actor implements GGKeyRepeatListener {
 
     private boolean isAuto = false;
 
+    public void setMovingMethod(MovingMethod movingMethod) {
+        this.movingMethod = movingMethod;
+    }
+
     public void setAuto(boolean auto) {
         isAuto = auto;
     }
@@ -122,9 +124,7 @@ public class PacActor extends Actor implements GGKeyRepeatListener {
      * @return true if the PacMan can move to the location
      */
     public boolean canMove(Location location) {
-        Color c = getBackground().getColor(location);
-        return !c.equals(Color.gray) && location.getX() < game.getNumHorzCells()
-                && location.getX() >= 0 && location.getY() < game.getNumVertCells() && location.getY() >= 0;
+        return game.getGrid().canMove(location.x, location.y);
     }
 
     public int getNbPills() {
@@ -137,36 +137,37 @@ public class PacActor extends Actor implements GGKeyRepeatListener {
      * @param location the location of the PacMan
      */
     private void onPortal(Location location) {
-        Color c = getBackground().getColor(location);
-        if (c.equals(Color.black)) {
-            Map<String, java.util.List<int[]>> portals = game.getCurrentMap().getPortals();
-            for (Map.Entry<String, java.util.List<int[]>> entry : portals.entrySet()) {
-                List<int[]> locs = entry.getValue();
-                if (location.getX() == locs.get(0)[1] && location.getY() == locs.get(0)[0]) {
-                    // Set the location to the second loc
-                    setLocation(new Location(locs.get(1)[1], locs.get(1)[0]));
-                } else if (location.getX() == locs.get(1)[1] && location.getY() == locs.get(1)[0]) {
-                    // Set the location to the first loc
-                    setLocation(new Location(locs.get(0)[1], locs.get(0)[0]));
-                }
+        PacManGameGrid grid = game.getGrid();
+        if (grid.isInside(location.x, location.y)) {
+            int partner = grid.getPortalPartner(grid.getCellIndex(location.x, location.y));
+            if (partner >= 0) {
+                setLocation(grid.toLocation(partner));
             }
         }
     }
 
     private void eatPill(Location location) {
-        Color c = getBackground().getColor(location);
-        if (c.equals(Color.white)) {
+        PacManGameGrid grid = game.getGrid();
+        if (!grid.isInside(location.x, location.y)) {
+            return;
+        }
+        int index = grid.getCellIndex(location.x, location.y);
+        int cell = grid.getCell(index);
+        if (cell == PacManGameGrid.PILL) {
             nbPills++;
             score++;
+            grid.setCell(index, PacManGameGrid.PATH);
             getBackground().fillCell(location, Color.lightGray);
             game.getGameCallback().pacManEatPillsAndItems(location, "pills");
-        } else if (c.equals(Color.yellow)) {
+        } else if (cell == PacManGameGrid.GOLD) {
             nbPills++;
             score += 5;
+            grid.setCell(index, PacManGameGrid.PATH);
             getBackground().fillCell(location, Color.lightGray);
             game.getGameCallback().pacManEatPillsAndItems(location, "gold");
             game.removeItem("gold", location);
-        } else if (c.equals(Color.blue)) {
+        } else if (cell == PacManGameGrid.ICE) {
+            grid.setCell(index, PacManGameGrid.PATH);
             getBackground().fillCell(location, Color.lightGray);
             game.getGameCallback().pacManEatPillsAndItems(location, "ice");
             game.removeItem("ice", location);
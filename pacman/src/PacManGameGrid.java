@@ -3,50 +3,274 @@ package src;
 
 import ch.aplu.jgamegrid.*;
 
+import java.util.Arrays;
+
+/**
+ * The maze of a level. Cell types are bit-packed four bits per cell, with a
+ * separate walkability bitset, so that movers and searches query cells by
+ * index instead of reading colours from the rendered background.
+ */
 public class PacManGameGrid {
+    public static final int UNKNOWN = -1;
+    public static final int WALL = 0;
+    public static final int PILL = 1;
+    public static final int PATH = 2;
+    public static final int GOLD = 3;
+    public static final int ICE = 4;
+    public static final int PORTAL_WHITE = 5;
+    public static final int PORTAL_YELLOW = 6;
+    public static final int PORTAL_DARK_GOLD = 7;
+    public static final int PORTAL_DARK_GRAY = 8;
+
+    private static final int CELLS_PER_WORD_SHIFT = 4;
+    private static final int CELL_INDEX_MASK = (1 << CELLS_PER_WORD_SHIFT) - 1;
+    private static final int BITS_PER_CELL_SHIFT = 2;
+    private static final long CELL_MASK = 0xFL;
+
     private int nbHorzCells;
     private int nbVertCells;
-    private int[][] mazeArray;
+    // Sixteen 4-bit cell types per word, UNKNOWN is stored as 0xF
+    private long[] cellTypes;
+    // One walkable bit per cell
+    private long[] walkable;
+    // One bit per cell holding a pill, gold or ice that has not been eaten
+    private long[] items;
+    // Number of remaining cells of each type, indexed by cell value
+    private int[] cellCounts = new int[PORTAL_DARK_GRAY + 1];
+    // Incremented on every change of a cell
+    private int version = 0;
+    // Cell index of the other end of each portal, -1 for other cells
+    private int[] portalPartner;
     private String maze;
 
     public PacManGameGrid(int nbHorzCells, int nbVertCells, String map) {
         this.nbHorzCells = nbHorzCells;
         this.nbVertCells = nbVertCells;
-        mazeArray = new int[nbVertCells][nbHorzCells];
+        int nbCells = nbHorzCells * nbVertCells;
+        cellTypes = new long[(nbCells + CELL_INDEX_MASK) >>> CELLS_PER_WORD_SHIFT];
+        walkable = new long[(nbCells + 63) >>> 6];
+        items = new long[(nbCells + 63) >>> 6];
         maze = map;
+        // Every cell starts as a wall until it is set
+        cellCounts[WALL] = nbCells;
 
-        // Convert the maze string to a 2D array
+        // Convert the maze string to the packed cells
         for (int i = 0; i < nbVertCells; i++) {
             for (int k = 0; k < nbHorzCells; k++) {
-                int value = toInt(maze.charAt(nbHorzCells * i + k));
-                mazeArray[i][k] = value;
+                int index = nbHorzCells * i + k;
+                setCell(index, toInt(maze.charAt(index)));
+            }
+        }
+        buildPortalPartners();
+    }
+
+    /**
+     * Pair the two tiles of every portal colour, once per level
+     */
+    private void buildPortalPartners() {
+        int nbPortalTypes = PORTAL_DARK_GRAY - PORTAL_WHITE + 1;
+        int[] firstEnd = new int[nbPortalTypes];
+        int[] secondEnd = new int[nbPortalTypes];
+        int[] counts = new int[nbPortalTypes];
+        Arrays.fill(firstEnd, -1);
+
+        portalPartner = new int[nbHorzCells * nbVertCells];
+        Arrays.fill(portalPartner, -1);
+        for (int index = 0; index < portalPartner.length; index++) {
+            if (isPortal(index)) {
+                int type = getCell(index) - PORTAL_WHITE;
+                if (counts[type] == 0) {
+                    firstEnd[type] = index;
+                } else if (counts[type] == 1) {
+                    secondEnd[type] = index;
+                }
+                counts[type]++;
+            }
+        }
+        // Only complete pairs teleport, as checked by the level checker
+        for (int type = 0; type < nbPortalTypes; type++) {
+            if (counts[type] == 2) {
+                portalPartner[firstEnd[type]] = secondEnd[type];
+                portalPartner[secondEnd[type]] = firstEnd[type];
             }
         }
     }
 
     public int getCell(Location location) {
-        return mazeArray[location.y][location.x];
+        return getCell(getCellIndex(location.x, location.y));
+    }
+
+    /**
+     * Get the cell value at the given coordinates
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the cell value
+     */
+    public int getCell(int x, int y) {
+        return getCell(getCellIndex(x, y));
+    }
+
+    /**
+     * Get the cell value at the given index
+     *
+     * @param index the cell index, see getCellIndex
+     * @return the cell value
+     */
+    public int getCell(int index) {
+        int shift = (index & CELL_INDEX_MASK) << BITS_PER_CELL_SHIFT;
+        int value = (int) ((cellTypes[index >>> CELLS_PER_WORD_SHIFT] >>> shift) & CELL_MASK);
+        return value == CELL_MASK ? UNKNOWN : value;
+    }
+
+    /**
+     * Change the value of a cell, e.g. when an item is eaten
+     *
+     * @param index the cell index, see getCellIndex
+     * @param value the new cell value
+     */
+    public void setCell(int index, int value) {
+        version++;
+        int oldValue = getCell(index);
+        if (oldValue >= 0) {
+            cellCounts[oldValue]--;
+        }
+        if (value >= 0) {
+            cellCounts[value]++;
+        }
+        int word = index >>> CELLS_PER_WORD_SHIFT;
+        int shift = (index & CELL_INDEX_MASK) << BITS_PER_CELL_SHIFT;
+        long bits = value < 0 ? CELL_MASK : value;
+        cellTypes[word] = (cellTypes[word] & ~(CELL_MASK << shift)) | (bits << shift);
+        // Everything but walls and unknown tiles is painted as a path
+        if (value > WALL) {
+            walkable[index >>> 6] |= 1L << index;
+        } else {
+            walkable[index >>> 6] &= ~(1L << index);
+        }
+        if (value == PILL || value == GOLD || value == ICE) {
+            items[index >>> 6] |= 1L << index;
+        } else {
+            items[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Get the index of a cell, row by row
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the cell index
+     */
+    public int getCellIndex(int x, int y) {
+        return y * nbHorzCells + x;
+    }
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < nbHorzCells && y >= 0 && y < nbVertCells;
+    }
+
+    /**
+     * Check if an actor can stand on the cell
+     *
+     * @param index the cell index, see getCellIndex
+     * @return true if the cell is not a wall
+     */
+    public boolean isWalkable(int index) {
+        return (walkable[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Check if an actor can move to the given coordinates
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return true if the cell is inside the maze and not a wall
+     */
+    public boolean canMove(int x, int y) {
+        return isInside(x, y) && isWalkable(getCellIndex(x, y));
+    }
+
+    /**
+     * Check if the cell still holds a pill, gold or ice
+     *
+     * @param index the cell index, see getCellIndex
+     * @return true if there is an item to eat on the cell
+     */
+    public boolean hasItem(int index) {
+        return (items[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Count the remaining cells of a type
+     *
+     * @param value the cell value, e.g. PILL or GOLD
+     * @return the number of cells with that value
+     */
+    public int getCellCount(int value) {
+        return cellCounts[value];
+    }
+
+    /**
+     * Get a counter that changes whenever a cell changes, so derived data can be cached
+     *
+     * @return the version of the maze
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isPortal(int index) {
+        return getCell(index) >= PORTAL_WHITE;
+    }
+
+    /**
+     * Get the other end of a portal
+     *
+     * @param index the cell index of the portal, see getCellIndex
+     * @return the cell index of the other end, or -1 if the cell is not a paired portal
+     */
+    public int getPortalPartner(int index) {
+        return portalPartner[index];
+    }
+
+    /**
+     * Convert a cell index back to a location
+     *
+     * @param index the cell index, see getCellIndex
+     * @return the location of the cell
+     */
+    public Location toLocation(int index) {
+        return new Location(index % nbHorzCells, index / nbHorzCells);
+    }
+
+    public int getNbHorzCells() {
+        return nbHorzCells;
+    }
+
+    public int getNbVertCells() {
+        return nbVertCells;
     }
 
     private int toInt(char c) {
         if (c == 'x')
-            return 0;
+            return WALL;
         if (c == '.')
-            return 1;
+            return PILL;
         if (c == ' ')
-            return 2;
+            return PATH;
         if (c == 'g')
-            return 3;
+            return GOLD;
         if (c == 'i')
-            return 4;
+            return ICE;
         if (c == '1')
-            return 5;
+            return PORTAL_WHITE;
         if (c == '2')
-            return 6;
+            return PORTAL_YELLOW;
         if (c == '3')
-            return 7;
+            return PORTAL_DARK_GOLD;
         if (c == '4')
-            return 8;
-        return -1;
+            return PORTAL_DARK_GRAY;
+        return UNKNOWN;
     }
 }
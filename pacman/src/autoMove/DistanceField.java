@@ -0,0 +1,260 @@
+package src.autoMove;
+
+import src.PacManGameGrid;
+
+import java.util.Arrays;
+
+/**
+ * Distance from every cell to the closest remaining item, computed by a
+ * breadth first search seeded from all items and walking portal edges.
+ * When items are eaten only the cells whose distance depended on them are
+ * recomputed, so choosing a step is a lookup over the neighbours and does
+ * not grow with the number of items.
+ */
+public class DistanceField implements StepFinder {
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+    private static final int MAX_NEIGHBOURS = 5;
+
+    private PacManGameGrid grid = null;
+    private int version;
+    private int width;
+
+    private int[] distances = new int[0];
+    // Cells holding an item when the field was last updated
+    private int[] sources = new int[0];
+    private int nbSources = 0;
+
+    // Scratch space for repairs
+    private int[] invalidCells = new int[0];
+    private int[] invalidStamps = new int[0];
+    private int stamp = 0;
+    private int[] queue = new int[0];
+    private long[] seeds = new long[0];
+    private final int[] neighbours = new int[MAX_NEIGHBOURS];
+    private final int[] supportNeighbours = new int[MAX_NEIGHBOURS];
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int findFirstStep(PacManGameGrid grid, int start) {
+        update(grid);
+        int best = start;
+        int bestDistance = distances[start];
+        int nbNeighbours = getNeighbours(start);
+        for (int i = 0; i < nbNeighbours; i++) {
+            if (distances[neighbours[i]] < bestDistance) {
+                best = neighbours[i];
+                bestDistance = distances[best];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the distance of a cell to the closest remaining item
+     *
+     * @param grid  the maze
+     * @param index the cell index
+     * @return the distance, or Integer.MAX_VALUE if no item can be reached
+     */
+    public int getDistance(PacManGameGrid grid, int index) {
+        update(grid);
+        return distances[index] >= INFINITY ? Integer.MAX_VALUE : distances[index];
+    }
+
+    /**
+     * Bring the field in line with the grid
+     *
+     * @param grid the maze
+     */
+    private void update(PacManGameGrid grid) {
+        if (grid != this.grid) {
+            rebuild(grid);
+        } else if (grid.getVersion() != version) {
+            repair();
+        }
+        version = grid.getVersion();
+    }
+
+    /**
+     * Compute the whole field from scratch, for a new maze
+     */
+    private void rebuild(PacManGameGrid grid) {
+        this.grid = grid;
+        this.width = grid.getNbHorzCells();
+        int nbCells = width * grid.getNbVertCells();
+        if (distances.length != nbCells) {
+            distances = new int[nbCells];
+            sources = new int[nbCells];
+            invalidCells = new int[nbCells];
+            invalidStamps = new int[nbCells];
+            queue = new int[nbCells];
+            seeds = new long[nbCells];
+            stamp = 0;
+        }
+        Arrays.fill(distances, INFINITY);
+
+        nbSources = 0;
+        int tail = 0;
+        for (int index = 0; index < nbCells; index++) {
+            if (grid.hasItem(index)) {
+                distances[index] = 0;
+                sources[nbSources++] = index;
+                queue[tail++] = index;
+            }
+        }
+        int head = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            int nbNeighbours = getNeighbours(current);
+            for (int i = 0; i < nbNeighbours; i++) {
+                int next = neighbours[i];
+                if (distances[next] == INFINITY) {
+                    distances[next] = distances[current] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute the cells that depended on eaten items
+     */
+    private void repair() {
+        nextStamp();
+        int nbInvalid = 0;
+
+        // Eaten items stop being sources
+        for (int i = nbSources - 1; i >= 0; i--) {
+            int source = sources[i];
+            if (!grid.hasItem(source)) {
+                sources[i] = sources[--nbSources];
+                invalidStamps[source] = stamp;
+                invalidCells[nbInvalid++] = source;
+            }
+        }
+        if (nbInvalid == 0) {
+            return;
+        }
+
+        // Invalidate, level by level, the cells left without a neighbour one step closer
+        for (int head = 0; head < nbInvalid; head++) {
+            int current = invalidCells[head];
+            int nbNeighbours = getNeighbours(current);
+            for (int i = 0; i < nbNeighbours; i++) {
+                int next = neighbours[i];
+                if (invalidStamps[next] != stamp && distances[next] == distances[current] + 1
+                        && !hasSupport(next)) {
+                    invalidStamps[next] = stamp;
+                    invalidCells[nbInvalid++] = next;
+                }
+            }
+        }
+
+        // Seed the invalid region from its valid border
+        int nbSeeds = 0;
+        for (int i = 0; i < nbInvalid; i++) {
+            int cell = invalidCells[i];
+            int candidate = INFINITY;
+            int nbNeighbours = getNeighbours(cell);
+            for (int j = 0; j < nbNeighbours; j++) {
+                int next = neighbours[j];
+                if (invalidStamps[next] != stamp) {
+                    candidate = Math.min(candidate, distances[next] + 1);
+                }
+            }
+            distances[cell] = candidate;
+            if (candidate < INFINITY) {
+                seeds[nbSeeds++] = ((long) candidate << 32) | cell;
+            }
+        }
+        Arrays.sort(seeds, 0, nbSeeds);
+
+        // Breadth first search inside the region, merging the sorted seeds with the queue
+        int seedIndex = 0;
+        int head = 0;
+        int tail = 0;
+        while (seedIndex < nbSeeds || head < tail) {
+            int current;
+            int distance;
+            if (head == tail || (seedIndex < nbSeeds && (int) (seeds[seedIndex] >>> 32) <= distances[queue[head]])) {
+                current = (int) seeds[seedIndex];
+                distance = (int) (seeds[seedIndex] >>> 32);
+                seedIndex++;
+            } else {
+                current = queue[head++];
+                distance = distances[current];
+            }
+            if (distance > distances[current]) {
+                // Already reached with a shorter distance
+                continue;
+            }
+            int nbNeighbours = getNeighbours(current);
+            for (int i = 0; i < nbNeighbours; i++) {
+                int next = neighbours[i];
+                if (invalidStamps[next] == stamp && distance + 1 < distances[next]) {
+                    distances[next] = distance + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if a cell still has a valid neighbour one step closer to an item
+     */
+    private boolean hasSupport(int index) {
+        int target = distances[index] - 1;
+        int nbNeighbours = getNeighbours(index, supportNeighbours);
+        for (int i = 0; i < nbNeighbours; i++) {
+            int next = supportNeighbours[i];
+            if (invalidStamps[next] != stamp && distances[next] == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getNeighbours(int index) {
+        return getNeighbours(index, neighbours);
+    }
+
+    /**
+     * Fill the cells reachable in one step: left, right, up, down, then the portal
+     *
+     * @param index  the cell index
+     * @param result the array to fill
+     * @return the number of neighbours
+     */
+    private int getNeighbours(int index, int[] result) {
+        int x = index % width;
+        int y = index / width;
+        int count = 0;
+        if (grid.canMove(x - 1, y)) {
+            result[count++] = index - 1;
+        }
+        if (grid.canMove(x + 1, y)) {
+            result[count++] = index + 1;
+        }
+        if (grid.canMove(x, y - 1)) {
+            result[count++] = index - width;
+        }
+        if (grid.canMove(x, y + 1)) {
+            result[count++] = index + width;
+        }
+        int partner = grid.getPortalPartner(index);
+        if (partner >= 0) {
+            result[count++] = partner;
+        }
+        return count;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(invalidStamps, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package src.autoMove;
+
+/**
+ * Moves like DirectMethod, but reads the next step from a distance field to
+ * the remaining items that is kept up to date as they are eaten, instead of
+ * searching from scratch every tick.
+ */
+public class DistanceFieldMethod extends DirectMethod {
+    private final DistanceField distanceField = new DistanceField();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected StepFinder getStepFinder() {
+        return distanceField;
+    }
+}
@@ -0,0 +1,348 @@
+package src.autoMove;
+
+import src.PacManGameGrid;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * A* search over the cells of a PacManGameGrid to the closest remaining item,
+ * guided by a portal aware distance bound to the remaining items.
+ * Cells are plain int indexes, the open list is an indexed binary heap with
+ * decrease-key, and the working arrays belong to the calling thread and are
+ * reused, so a search allocates nothing once they fit the maze. They are kept
+ * by size only: the path finder holds no strong reference to a maze.
+ */
+public class PathFinder implements StepFinder {
+    private static final ThreadLocal<PathFinder> threadPathFinder = ThreadLocal.withInitial(PathFinder::new);
+    private static final int NOT_IN_HEAP = -1;
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    // Per cell data, only valid when the stamp of the cell is the current search
+    private int[] costs = new int[0];
+    private int[] estimates = new int[0];
+    private int[] parents = new int[0];
+    private int[] heapPositions = new int[0];
+    private int[] seenStamps = new int[0];
+    private int[] closedStamps = new int[0];
+    private int stamp = 0;
+
+    // Indexed binary heap of cells ordered by estimated total cost
+    private int[] heap = new int[0];
+    private int heapSize = 0;
+
+    // Lower bound of the distance to the closest item for every cell
+    private int[] heuristics = new int[0];
+    private int[] portalEnds = new int[0];
+    private int[] portalBounds = new int[0];
+    // Weak, so a long-lived thread does not keep the last maze it searched alive
+    private WeakReference<PacManGameGrid> heuristicGrid = new WeakReference<>(null);
+    private int heuristicVersion;
+
+    private int width;
+    private int expandedNodes = 0;
+
+    /**
+     * Get the path finder of the current thread
+     *
+     * @return the path finder
+     */
+    public static PathFinder get() {
+        return threadPathFinder.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int findFirstStep(PacManGameGrid grid, int start) {
+        int goal = search(grid, start);
+        if (goal < 0) {
+            return start;
+        }
+        // Walk back to the cell right after the start
+        int step = goal;
+        while (parents[step] != NOT_IN_HEAP && parents[step] != start) {
+            step = parents[step];
+        }
+        return step;
+    }
+
+    /**
+     * Number of cells expanded by the last search of this thread
+     *
+     * @return the number of expanded cells
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Run the search
+     *
+     * @param grid  the maze
+     * @param start the cell index to start from
+     * @return the cell index of the closest item, or -1 if there is none
+     */
+    private int search(PacManGameGrid grid, int start) {
+        width = grid.getNbHorzCells();
+        ensureCapacity(width * grid.getNbVertCells());
+        updateHeuristics(grid);
+        nextStamp();
+        heapSize = 0;
+        expandedNodes = 0;
+
+        open(start, 0, NOT_IN_HEAP);
+        while (heapSize > 0) {
+            int current = poll();
+            closedStamps[current] = stamp;
+            expandedNodes++;
+
+            if (grid.hasItem(current)) {
+                return current;
+            }
+
+            int x = current % width;
+            int y = current / width;
+            int cost = costs[current] + 1;
+            // Same neighbour order as before: left, right, up, down, then the portal
+            if (grid.canMove(x - 1, y)) {
+                open(current - 1, cost, current);
+            }
+            if (grid.canMove(x + 1, y)) {
+                open(current + 1, cost, current);
+            }
+            if (grid.canMove(x, y - 1)) {
+                open(current - width, cost, current);
+            }
+            if (grid.canMove(x, y + 1)) {
+                open(current + width, cost, current);
+            }
+            int partner = grid.getPortalPartner(current);
+            if (partner >= 0) {
+                open(partner, cost, current);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Estimate of the remaining cost from a cell to the closest item: the
+     * shortest distance ignoring walls, where a portal may be taken at a cost
+     * of one step. It never overestimates, so the search stays optimal.
+     *
+     * @param index the cell index
+     * @return a lower bound of the distance to the closest item
+     */
+    private int heuristic(int index) {
+        return heuristics[index];
+    }
+
+    /**
+     * Rebuild the heuristic table when the maze or its remaining items changed
+     *
+     * @param grid the maze
+     */
+    private void updateHeuristics(PacManGameGrid grid) {
+        if (grid == heuristicGrid.get() && grid.getVersion() == heuristicVersion) {
+            return;
+        }
+        heuristicGrid = new WeakReference<>(grid);
+        heuristicVersion = grid.getVersion();
+        int height = grid.getNbVertCells();
+        int nbCells = width * height;
+
+        // Manhattan distance to the closest item, with a forward and a backward pass
+        for (int index = 0; index < nbCells; index++) {
+            heuristics[index] = grid.hasItem(index) ? 0 : INFINITY;
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                if (x > 0) {
+                    heuristics[index] = Math.min(heuristics[index], heuristics[index - 1] + 1);
+                }
+                if (y > 0) {
+                    heuristics[index] = Math.min(heuristics[index], heuristics[index - width] + 1);
+                }
+            }
+        }
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                int index = y * width + x;
+                if (x < width - 1) {
+                    heuristics[index] = Math.min(heuristics[index], heuristics[index + 1] + 1);
+                }
+                if (y < height - 1) {
+                    heuristics[index] = Math.min(heuristics[index], heuristics[index + width] + 1);
+                }
+            }
+        }
+
+        // Portal ends, and the bound from each of them when taking any chain of portals
+        int nbPortals = 0;
+        for (int index = 0; index < nbCells; index++) {
+            if (grid.getPortalPartner(index) >= 0) {
+                portalEnds[nbPortals] = index;
+                portalBounds[nbPortals] = heuristics[index];
+                nbPortals++;
+            }
+        }
+        if (nbPortals == 0) {
+            return;
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < nbPortals; i++) {
+                int bound = boundThroughPortals(grid, portalEnds[i], nbPortals);
+                if (bound < portalBounds[i]) {
+                    portalBounds[i] = bound;
+                    changed = true;
+                }
+            }
+        }
+        for (int index = 0; index < nbCells; index++) {
+            heuristics[index] = Math.min(heuristics[index], boundThroughPortals(grid, index, nbPortals));
+        }
+    }
+
+    /**
+     * Lower bound from a cell when walking to a portal first
+     */
+    private int boundThroughPortals(PacManGameGrid grid, int index, int nbPortals) {
+        int bound = INFINITY;
+        int x = index % width;
+        int y = index / width;
+        for (int i = 0; i < nbPortals; i++) {
+            int portal = portalEnds[i];
+            int partnerBound = portalBounds[indexOfPortal(grid.getPortalPartner(portal), nbPortals)];
+            int distance = Math.abs(portal % width - x) + Math.abs(portal / width - y) + 1 + partnerBound;
+            bound = Math.min(bound, distance);
+        }
+        return bound;
+    }
+
+    private int indexOfPortal(int index, int nbPortals) {
+        for (int i = 0; i < nbPortals; i++) {
+            if (portalEnds[i] == index) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add a cell to the open list, or lower its cost if it is already there
+     */
+    private void open(int index, int cost, int parent) {
+        if (closedStamps[index] == stamp) {
+            return;
+        }
+        if (seenStamps[index] != stamp) {
+            seenStamps[index] = stamp;
+            costs[index] = cost;
+            estimates[index] = cost + heuristic(index);
+            parents[index] = parent;
+            heap[heapSize] = index;
+            heapPositions[index] = heapSize;
+            heapSize++;
+            siftUp(heapSize - 1);
+        } else if (cost < costs[index]) {
+            // Decrease key, the heuristic part of the estimate does not change
+            estimates[index] -= costs[index] - cost;
+            costs[index] = cost;
+            parents[index] = parent;
+            siftUp(heapPositions[index]);
+        }
+    }
+
+    /**
+     * Remove the cell with the lowest estimate from the open list
+     */
+    private int poll() {
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPositions[heap[0]] = 0;
+            siftDown(0);
+        }
+        heapPositions[top] = NOT_IN_HEAP;
+        return top;
+    }
+
+    private void siftUp(int position) {
+        int index = heap[position];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = heap[parentPosition];
+            if (!isBefore(index, parent)) {
+                break;
+            }
+            heap[position] = parent;
+            heapPositions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = index;
+        heapPositions[index] = position;
+    }
+
+    private void siftDown(int position) {
+        int index = heap[position];
+        int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < heapSize && isBefore(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!isBefore(heap[child], index)) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapPositions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = index;
+        heapPositions[index] = position;
+    }
+
+    /**
+     * Order by estimate, then prefer the cell with the longer known path
+     */
+    private boolean isBefore(int a, int b) {
+        if (estimates[a] != estimates[b]) {
+            return estimates[a] < estimates[b];
+        }
+        return costs[a] > costs[b];
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            // Start again from a clean slate instead of overflowing
+            Arrays.fill(seenStamps, 0);
+            Arrays.fill(closedStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    private void ensureCapacity(int nbCells) {
+        if (costs.length >= nbCells) {
+            return;
+        }
+        costs = new int[nbCells];
+        estimates = new int[nbCells];
+        parents = new int[nbCells];
+        heapPositions = new int[nbCells];
+        seenStamps = new int[nbCells];
+        closedStamps = new int[nbCells];
+        heap = new int[nbCells];
+        heuristics = new int[nbCells];
+        portalEnds = new int[nbCells];
+        portalBounds = new int[nbCells];
+        heuristicGrid.clear();
+        stamp = 0;
+    }
+}
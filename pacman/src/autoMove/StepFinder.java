@@ -0,0 +1,35 @@
+package src.autoMove;
+
+import src.PacManGameGrid;
+
+/**
+ * Finds the first step towards the closest remaining item on plain cell
+ * indexes, so the same search serves PacActor and the headless engine.
+ */
+public interface StepFinder {
+    String DIRECT = "direct";
+    String DISTANCE_FIELD = "distanceField";
+
+    /**
+     * Find the first step of the shortest path from a cell to the closest remaining item
+     *
+     * @param grid  the maze
+     * @param start the cell index to start from
+     * @return the cell index of the first step, or start if it already holds
+     * an item or no item can be reached
+     */
+    int findFirstStep(PacManGameGrid grid, int start);
+
+    /**
+     * Create the step finder for a moving method name
+     *
+     * @param movingMethod DIRECT or DISTANCE_FIELD
+     * @return a step finder for the calling thread
+     */
+    static StepFinder create(String movingMethod) {
+        if (DISTANCE_FIELD.equals(movingMethod)) {
+            return new DistanceField();
+        }
+        return PathFinder.get();
+    }
+}
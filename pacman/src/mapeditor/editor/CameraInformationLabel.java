@@ -31,9 +31,7 @@ public class CameraInformationLabel extends JLabel implements PropertyChangeList
         this.camera = camera;
         camera.addPropertyChangeListener(this);
 
-        this.setText("Showing: 0 - " + src.mapeditor.editor.Constants.GRID_WIDTH + "/"
-                + camera.getModelWidth() + ", 0 - " + src.mapeditor.editor.Constants.GRID_HEIGHT
-                + "/" + camera.getModelHeight());
+        updateCameraInformation();
         this.setPreferredSize(new Dimension(220, 15));
     }
 
@@ -7,12 +7,14 @@ import org.jdom.output.Format;
 import org.jdom.output.XMLOutputter;
 import src.Game;
 import src.mapeditor.grid.*;
+import src.mapeditor.util.BinaryMapConverter;
+import src.mapeditor.util.CompiledMap;
 import src.mapeditor.util.GameMap;
+import src.mapeditor.util.MapCache;
 import src.mapeditor.util.MapConverter;
 import src.mapeditor.util.MapLoader;
 import src.mapeditor.util.XMLMapConverter;
-import src.utility.GameCallback;
-import src.utility.PropertiesLoader;
+import src.utility.*;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
@@ -33,7 +35,9 @@ import java.util.Properties;
  * @since v 1.0
  */
 public class Controller implements ActionListener, GUIInformation {
-    private static final String TMP_FILE = "tmp.xml";
+    // Name of the edited map in the level check problems, the file it was once saved to
+    private static final String EDITED_LEVEL = "tmp.xml";
+    private static final String BINARY_LOG_FILE = "Log.bin";
 
     /**
      * The model of the map editor.
@@ -43,16 +47,26 @@ public class Controller implements ActionListener, GUIInformation {
     private Tile selectedTile;
     private Camera camera;
 
+    /**
+     * Undo and redo of the edits made on the map.
+     */
+    private EditJournal journal;
+
     private List<Tile> tiles;
 
     private GridView grid;
     private View view;
 
+    // Tiles of the map being played from the editor, to edit again after the game
+    private char[][] playedTiles;
+
     private int gridWith = Constants.MAP_WIDTH;
     private int gridHeight = Constants.MAP_HEIGHT;
     public static final String DEFAULT_PROPERTIES_FILE = "properties/test.properties";
     MapConverter mapConverter = new XMLMapConverter();
-    MapLoader mapLoader = new MapLoader(mapConverter);
+    MapCache mapCache = new MapCache(new File(MapCache.DEFAULT_FOLDER));
+    MapLoader mapLoader = new MapLoader(mapConverter, () -> new FileSink(GameCallback.LOG_FILE_PATH),
+            Runtime.getRuntime().availableProcessors(), mapCache);
 
     /**
      * Construct the controller. (No map loaded)
@@ -75,18 +89,22 @@ public class Controller implements ActionListener, GUIInformation {
             init(Constants.MAP_WIDTH, Constants.MAP_HEIGHT);
             loadSingleFile(path);
         } else if (mode == 1) {
-            List<GameMap> maps = mapLoader.loadMaps(path);
+            // Levels compiled by MapCompiler are read without parsing XML, unless edited since
+            MapLoader folderLoader = new MapLoader(BinaryMapConverter.forFolder(path),
+                    () -> new FileSink(GameCallback.LOG_FILE_PATH), Runtime.getRuntime().availableProcessors(),
+                    mapCache);
+            List<GameMap> maps = folderLoader.loadMaps(path);
             if (maps == null) {
                 // Failed game checking
                 init(Constants.MAP_WIDTH, Constants.MAP_HEIGHT);
-            } else if (maps.size() == 1 && !mapLoader.isPassedLevelCheck()) {
+            } else if (maps.size() == 1 && !folderLoader.isPassedLevelCheck()) {
                 // Failed level checking
                 init(Constants.MAP_WIDTH, Constants.MAP_HEIGHT);
                 loadSingleFile(maps.get(0).getMap());
             } else {
                 // Passed both game and level checking
                 final Properties properties = PropertiesLoader.loadPropertiesFile(DEFAULT_PROPERTIES_FILE);
-                GameCallback gameCallback = new GameCallback();
+                GameCallback gameCallback = createGameCallback(properties);
                 new Game(gameCallback, properties, maps, this, 0, path);
             }
         }
@@ -101,11 +119,14 @@ public class Controller implements ActionListener, GUIInformation {
     public void init(int width, int height) {
         this.tiles = src.mapeditor.editor.TileManager.getTilesFromFolder("data/");
         this.model = new GridModel(width, height, tiles.get(0).getCharacter());
-        this.camera = new GridCamera(model, Constants.GRID_WIDTH,
-                Constants.GRID_HEIGHT);
+        // The camera shows a window of at most GRID_WIDTH x GRID_HEIGHT tiles, however large the map
+        this.camera = new GridCamera(model, Math.min(Constants.GRID_WIDTH, width),
+                Math.min(Constants.GRID_HEIGHT, height));
+
+        this.journal = new EditJournal(model);
 
         // Every tile is 30x30 pixels
-        grid = new GridView(this, camera, tiles);
+        grid = new GridView(this, camera, tiles, journal);
 
         this.view = new View(this, camera, grid, tiles);
     }
@@ -128,33 +149,64 @@ public class Controller implements ActionListener, GUIInformation {
             saveFile();
         } else if (e.getActionCommand().equals("load")) {
             loadFile();
+        } else if (e.getActionCommand().equals("undo")) {
+            journal.undo();
+        } else if (e.getActionCommand().equals("redo")) {
+            journal.redo();
         } else if (e.getActionCommand().equals("update")) {
             updateGrid(gridWith, gridHeight);
         } else if (e.getActionCommand().equals("start_game")) {
-            // Save the map as a tmp file
-            saveTmpFile();
+            // Play the edited map as it is, it is only written to a file when the user saves it
+            playedTiles = model.getMap();
             // Close the editor
             view.close();
             List<GameMap> maps = new ArrayList<>();
-            GameMap gameMap = mapLoader.loadMap(TMP_FILE);
+            GameMap gameMap = mapLoader.checkMap(CompiledMap.fromTileCharacters(playedTiles).toGameMap(),
+                    EDITED_LEVEL);
             if (gameMap == null) {
                 // Failed level checking
                 init(Constants.MAP_WIDTH, Constants.MAP_HEIGHT);
-                loadSingleFile(TMP_FILE);
+                loadPlayedMap();
             } else {
                 // level checking passed
                 maps.add(gameMap);
                 // Create a new thread to start the game
                 Thread t = new Thread(() -> {
                     final Properties properties = PropertiesLoader.loadPropertiesFile(DEFAULT_PROPERTIES_FILE);
-                    GameCallback gameCallback = new GameCallback();
-                    new Game(gameCallback, properties, maps, this, 1, TMP_FILE);
+                    GameCallback gameCallback = createGameCallback(properties);
+                    new Game(gameCallback, properties, maps, this, 1, null);
                 });
                 t.start();
             }
         }
     }
 
+    /**
+     * Create the callback of the game with the log sink chosen in the properties:
+     * Log.sink is file (Log.txt, the default), gzip (Log.txt.gz), binary (Log.bin,
+     * turned into Log.txt by BinaryLogDecoder) or none, and
+     * Log.isAsync writes it from a background thread.
+     *
+     * @param properties properties of the game
+     * @return the game callback
+     */
+    private GameCallback createGameCallback(Properties properties) {
+        boolean isAsync = Boolean.parseBoolean(properties.getProperty("Log.isAsync"));
+        EventSink sink = switch (properties.getProperty("Log.sink", "file")) {
+            case "none" -> new NullSink();
+            case "gzip" -> new GzipSink(new File(GameCallback.LOG_FILE_PATH + ".gz"));
+            case "binary" -> new BinarySink(new File(BINARY_LOG_FILE));
+            // The background writer flushes on its period, not after every line
+            default -> new FileSink(new File(GameCallback.LOG_FILE_PATH), !isAsync);
+        };
+        if (isAsync) {
+            long flushPeriod = Long.parseLong(properties.getProperty("Log.flushPeriod",
+                    String.valueOf(AsyncSink.DEFAULT_FLUSH_PERIOD_MS)));
+            sink = new AsyncSink(sink, AsyncSink.DEFAULT_CAPACITY, flushPeriod);
+        }
+        return new GameCallback(sink);
+    }
+
     public void updateGrid(int width, int height) {
         view.close();
         // Init the new grid
@@ -253,19 +305,6 @@ public class Controller implements ActionListener, GUIInformation {
         }
     }
 
-    /**
-     * Save the map as a tmp file
-     */
-    public void saveTmpFile() {
-        try {
-            Document doc = generateDocumentFromModel();
-            saveDocumentToFile(doc, new File(TMP_FILE));
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error while saving file",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
     private void updateGridFromDocument(Document document) {
         Element rootNode = document.getRootElement();
         Element sizeElem = rootNode.getChild("size");
@@ -273,16 +312,42 @@ public class Controller implements ActionListener, GUIInformation {
         int width = Integer.parseInt(sizeElem.getChildText("width"));
         updateGrid(width, height);
 
-        // Add the tiles
+        // Add the tiles, as one change of the model
         List<Element> rows = rootNode.getChildren("row");
-        for (int y = 0; y < rows.size(); y++) {
-            List<Element> cells = rows.get(y).getChildren("cell");
-            for (int x = 0; x < cells.size(); x++) {
-                String cellValue = cells.get(x).getText();
-                model.setTile(x, y, getTileCharacter(cellValue));
+        model.beginUpdate();
+        try {
+            for (int y = 0; y < rows.size(); y++) {
+                List<Element> cells = rows.get(y).getChildren("cell");
+                for (int x = 0; x < cells.size(); x++) {
+                    String cellValue = cells.get(x).getText();
+                    model.setTile(x, y, getTileCharacter(cellValue));
+                }
+            }
+        } finally {
+            model.endUpdate();
+        }
+        grid.redrawGrid();
+    }
+
+    private void updateGridFromTiles(char[][] tiles) {
+        updateGrid(tiles[0].length, tiles.length);
+
+        // Add the tiles
+        model.setTiles(0, 0, tiles);
+        grid.redrawGrid();
+    }
+
+    private void updateGridFromCompiledMap(CompiledMap map) {
+        updateGrid(map.getWidth(), map.getHeight());
+
+        // Add the tiles
+        char[][] tiles = new char[map.getHeight()][map.getWidth()];
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                tiles[y][x] = map.getTileCharacter(x, y);
             }
         }
-        String mapString = model.getMapAsString();
+        model.setTiles(0, 0, tiles);
         grid.redrawGrid();
     }
 
@@ -331,7 +396,9 @@ public class Controller implements ActionListener, GUIInformation {
     public void loadSingleFile(String fileName) {
         try {
             File selectedFile = new File(fileName);
-            if (selectedFile.canRead()) {
+            if (selectedFile.canRead() && fileName.endsWith(BinaryMapConverter.FILE_SUFFIX)) {
+                updateGridFromCompiledMap(CompiledMap.read(selectedFile));
+            } else if (selectedFile.canRead()) {
                 SAXBuilder builder = new SAXBuilder();
                 Document document = builder.build(selectedFile);
                 updateGridFromDocument(document);
@@ -342,6 +409,15 @@ public class Controller implements ActionListener, GUIInformation {
     }
 
 
+    /**
+     * Loads the map that was last played from the editor
+     */
+    public void loadPlayedMap() {
+        if (playedTiles != null) {
+            updateGridFromTiles(playedTiles);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -4,8 +4,6 @@ import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
 
@@ -30,6 +28,11 @@ public class Tile {
     private BufferedImage image;
     private String filePath;
 
+    /**
+     * The image in the format of the screen, made when first asked for.
+     */
+    private BufferedImage compatibleImage;
+
     /**
      * Construct a tile.
      *
@@ -55,12 +58,16 @@ public class Tile {
     }
 
     /**
-     * Get the tile as a image.
+     * Get the tile as a image. The image is in the format of the screen so it
+     * is drawn without conversion, and is shared: it must not be drawn on.
      *
      * @return Image The tile icon.
      */
-    public Image getImage() {
-        return deepCopy(image);
+    public synchronized Image getImage() {
+        if (compatibleImage == null) {
+            compatibleImage = toCompatibleImage(image);
+        }
+        return compatibleImage;
     }
 
 
@@ -82,10 +89,24 @@ public class Tile {
         return character;
     }
 
-    private static BufferedImage deepCopy(BufferedImage bi) {
-        ColorModel cm = bi.getColorModel();
-        boolean isAlphaPremultiplied = cm.isAlphaPremultiplied();
-        WritableRaster raster = bi.copyData(null);
-        return new BufferedImage(cm, raster, isAlphaPremultiplied, null);
+    /**
+     * Copy an image into a new image in the format of the default screen.
+     *
+     * @param bi The image.
+     * @return BufferedImage The copy, with the same size and transparency.
+     */
+    static BufferedImage toCompatibleImage(BufferedImage bi) {
+        BufferedImage copy;
+        if (GraphicsEnvironment.isHeadless()) {
+            copy = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            copy = gc.createCompatibleImage(bi.getWidth(), bi.getHeight(), bi.getTransparency());
+        }
+        Graphics2D g = copy.createGraphics();
+        g.drawImage(bi, 0, 0, null);
+        g.dispose();
+        return copy;
     }
 }
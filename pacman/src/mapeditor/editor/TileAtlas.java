@@ -0,0 +1,78 @@
+package src.mapeditor.editor;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * All tile images side by side in one image in the format of the screen. A
+ * tile is drawn by its character straight from the atlas, so painting the
+ * grid neither allocates nor converts images.
+ */
+public class TileAtlas {
+
+    /**
+     * The tiles in a row, one slot of TILE_WIDTH x TILE_HEIGHT each.
+     */
+    private final BufferedImage atlas;
+
+    /**
+     * Slot of every character, -1 for characters without a tile.
+     */
+    private final int[] slots;
+
+    /**
+     * Build the atlas of a list of tiles.
+     *
+     * @param tiles The tiles, each in its own slot.
+     */
+    public TileAtlas(List<? extends Tile> tiles) {
+        int maxCharacter = 0;
+        for (Tile tile : tiles) {
+            maxCharacter = Math.max(maxCharacter, tile.getCharacter());
+        }
+        slots = new int[maxCharacter + 1];
+        Arrays.fill(slots, -1);
+        BufferedImage strip = new BufferedImage(Math.max(tiles.size(), 1) * Constants.TILE_WIDTH,
+                Constants.TILE_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = strip.createGraphics();
+        for (int i = 0; i < tiles.size(); i++) {
+            Tile tile = tiles.get(i);
+            slots[tile.getCharacter()] = i;
+            // Keep a tile inside its slot, even if its image is larger
+            g.setClip(i * Constants.TILE_WIDTH, 0, Constants.TILE_WIDTH, Constants.TILE_HEIGHT);
+            g.drawImage(tile.getImage(), i * Constants.TILE_WIDTH, 0, null);
+        }
+        g.dispose();
+        atlas = Tile.toCompatibleImage(strip);
+    }
+
+    /**
+     * Whether a character has a tile.
+     *
+     * @param character The tile character.
+     * @return boolean True if the character can be drawn.
+     */
+    public boolean hasTile(char character) {
+        return character < slots.length && slots[character] >= 0;
+    }
+
+    /**
+     * Draw the tile of a character. Nothing is drawn for a character without a tile.
+     *
+     * @param g         The graphics to draw on.
+     * @param character The tile character.
+     * @param x         The X-coordinate of the top left corner, in pixels.
+     * @param y         The Y-coordinate of the top left corner, in pixels.
+     */
+    public void drawTile(Graphics g, char character, int x, int y) {
+        if (!hasTile(character)) {
+            return;
+        }
+        int slot = slots[character];
+        int sx = slot * Constants.TILE_WIDTH;
+        g.drawImage(atlas, x, y, x + Constants.TILE_WIDTH, y + Constants.TILE_HEIGHT,
+                sx, 0, sx + Constants.TILE_WIDTH, Constants.TILE_HEIGHT, null);
+    }
+}
@@ -43,8 +43,8 @@ public class View {
 
         // showingGrid = true;
 
-        grid.setPreferredSize(new Dimension(Constants.GRID_WIDTH
-                * Constants.TILE_WIDTH, Constants.GRID_HEIGHT
+        grid.setPreferredSize(new Dimension(camera.getWidth()
+                * Constants.TILE_WIDTH, camera.getHeight()
                 * Constants.TILE_HEIGHT));
 
         /** Create the bottom panel. */
@@ -72,6 +72,14 @@ public class View {
         loadButton.addActionListener(controller);
         loadButton.setActionCommand("load");
 
+        JButton undoButton = new JButton("Undo");
+        undoButton.addActionListener(controller);
+        undoButton.setActionCommand("undo");
+
+        JButton redoButton = new JButton("Redo");
+        redoButton.addActionListener(controller);
+        redoButton.setActionCommand("redo");
+
         JButton startGameButton = new JButton("Start game");
         startGameButton.addActionListener(controller);
         startGameButton.setActionCommand("start_game");
@@ -83,6 +91,8 @@ public class View {
         // right.add(showGridButton);
         right.add(saveButton);
         right.add(loadButton);
+        right.add(undoButton);
+        right.add(redoButton);
         right.add(startGameButton);
 
         /** The top panel, that shows coordinates and stuff. */
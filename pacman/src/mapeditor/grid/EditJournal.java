@@ -0,0 +1,251 @@
+package src.mapeditor.grid;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Undo and redo of the tile edits made on a Grid. The edits of one stroke,
+ * from pressing the mouse button to releasing it, are undone together. A
+ * stroke is stored as runs of neighbouring tiles in a row that had the same
+ * old character and got the same new one, so the map is never copied.
+ * <p>
+ * The journal keeps the most recent strokes within a memory budget and forgets
+ * the oldest ones beyond it.
+ */
+public class EditJournal {
+
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Every run is four ints: x, y, length, and the old character in the high
+     * half with the new one in the low half.
+     */
+    private static final int RUN_SIZE = 4;
+    private static final int BYTES_PER_RUN = RUN_SIZE * Integer.BYTES;
+    private static final int BYTES_PER_STROKE = 32;
+
+    private final Grid grid;
+    private final long maxBytes;
+
+    private final Deque<Stroke> undoStrokes = new ArrayDeque<>();
+    private final Deque<Stroke> redoStrokes = new ArrayDeque<>();
+    private Stroke currentStroke = null;
+    private long usedBytes = 0;
+
+    /**
+     * The runs of one stroke, in the order they were made.
+     */
+    private static class Stroke {
+        private int[] runs = new int[RUN_SIZE * 4];
+        private int size = 0;
+
+        private long getBytes() {
+            return BYTES_PER_STROKE + (long) size * Integer.BYTES;
+        }
+
+        /**
+         * Add an edit, extending the last run if the tile is next to it.
+         */
+        private void add(int x, int y, char oldChar, char newChar) {
+            int chars = (oldChar << 16) | newChar;
+            if (size > 0) {
+                int last = size - RUN_SIZE;
+                if (runs[last + 1] == y && runs[last + 3] == chars) {
+                    if (x == runs[last] + runs[last + 2]) {
+                        runs[last + 2]++;
+                        return;
+                    } else if (x == runs[last] - 1) {
+                        runs[last]--;
+                        runs[last + 2]++;
+                        return;
+                    }
+                }
+            }
+            if (size == runs.length) {
+                runs = Arrays.copyOf(runs, size * 2);
+            }
+            runs[size] = x;
+            runs[size + 1] = y;
+            runs[size + 2] = 1;
+            runs[size + 3] = chars;
+            size += RUN_SIZE;
+        }
+
+        private void trim() {
+            runs = Arrays.copyOf(runs, size);
+        }
+    }
+
+    /**
+     * Constructs a journal with the default memory budget.
+     *
+     * @param grid The grid whose edits are recorded.
+     */
+    public EditJournal(Grid grid) {
+        this(grid, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a journal.
+     *
+     * @param grid     The grid whose edits are recorded.
+     * @param maxBytes The memory the strokes may take, the oldest are forgotten beyond it.
+     */
+    public EditJournal(Grid grid, long maxBytes) {
+        this.grid = grid;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Start a stroke. The edits recorded until endStroke are undone together.
+     */
+    public void beginStroke() {
+        endStroke();
+        currentStroke = new Stroke();
+    }
+
+    /**
+     * Record an edit that has been made on the grid. An edit outside of a
+     * stroke is a stroke on its own.
+     *
+     * @param x       The X-coordinate in the grid.
+     * @param y       The Y-coordinate in the grid.
+     * @param oldChar The character before the edit.
+     * @param newChar The character after the edit.
+     */
+    public void record(int x, int y, char oldChar, char newChar) {
+        if (oldChar == newChar) {
+            return;
+        }
+        if (currentStroke == null) {
+            beginStroke();
+            currentStroke.add(x, y, oldChar, newChar);
+            endStroke();
+        } else {
+            currentStroke.add(x, y, oldChar, newChar);
+        }
+    }
+
+    /**
+     * End the current stroke, if any, and make it the one to undo next.
+     */
+    public void endStroke() {
+        Stroke stroke = currentStroke;
+        currentStroke = null;
+        if (stroke == null || stroke.size == 0) {
+            return;
+        }
+        stroke.trim();
+        clearStrokes(redoStrokes);
+        push(undoStrokes, stroke);
+        // Keep at least the newest stroke, even if it is larger than the budget
+        while (usedBytes > maxBytes && undoStrokes.size() > 1) {
+            usedBytes -= undoStrokes.removeLast().getBytes();
+        }
+    }
+
+    /**
+     * Undo the last stroke.
+     *
+     * @return boolean True if there was a stroke to undo.
+     */
+    public boolean undo() {
+        endStroke();
+        Stroke stroke = pop(undoStrokes);
+        if (stroke == null) {
+            return false;
+        }
+        apply(stroke, true);
+        push(redoStrokes, stroke);
+        return true;
+    }
+
+    /**
+     * Redo the last undone stroke.
+     *
+     * @return boolean True if there was a stroke to redo.
+     */
+    public boolean redo() {
+        endStroke();
+        Stroke stroke = pop(redoStrokes);
+        if (stroke == null) {
+            return false;
+        }
+        apply(stroke, false);
+        push(undoStrokes, stroke);
+        return true;
+    }
+
+    public boolean canUndo() {
+        return !undoStrokes.isEmpty() || (currentStroke != null && currentStroke.size > 0);
+    }
+
+    public boolean canRedo() {
+        return !redoStrokes.isEmpty();
+    }
+
+    /**
+     * Forget all strokes.
+     */
+    public void clear() {
+        currentStroke = null;
+        clearStrokes(undoStrokes);
+        clearStrokes(redoStrokes);
+    }
+
+    /**
+     * Returns the memory taken by the strokes kept.
+     *
+     * @return long The number of bytes.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Write the old or the new characters of a stroke back to the grid, as
+     * one change of the grid.
+     */
+    private void apply(Stroke stroke, boolean isUndo) {
+        grid.beginUpdate();
+        try {
+            if (isUndo) {
+                for (int i = stroke.size - RUN_SIZE; i >= 0; i -= RUN_SIZE) {
+                    applyRun(stroke.runs, i, (char) (stroke.runs[i + 3] >>> 16));
+                }
+            } else {
+                for (int i = 0; i < stroke.size; i += RUN_SIZE) {
+                    applyRun(stroke.runs, i, (char) stroke.runs[i + 3]);
+                }
+            }
+        } finally {
+            grid.endUpdate();
+        }
+    }
+
+    private void applyRun(int[] runs, int i, char c) {
+        char[][] row = new char[1][runs[i + 2]];
+        Arrays.fill(row[0], c);
+        grid.setTiles(runs[i], runs[i + 1], row);
+    }
+
+    private void push(Deque<Stroke> strokes, Stroke stroke) {
+        strokes.push(stroke);
+        usedBytes += stroke.getBytes();
+    }
+
+    private Stroke pop(Deque<Stroke> strokes) {
+        Stroke stroke = strokes.poll();
+        if (stroke != null) {
+            usedBytes -= stroke.getBytes();
+        }
+        return stroke;
+    }
+
+    private void clearStrokes(Deque<Stroke> strokes) {
+        while (pop(strokes) != null) {
+            // keep the byte count right
+        }
+    }
+}
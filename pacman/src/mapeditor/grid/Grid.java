@@ -34,6 +34,28 @@ public interface Grid {
      */
     public void setTile(int x, int y, char c);
 
+    /**
+     * Set the values of a rectangle of tiles as one change.
+     *
+     * @param x     The X-coordinate of the top left tile.
+     * @param y     The Y-coordinate of the top left tile.
+     * @param tiles The characters, row by row.
+     */
+    public void setTiles(int x, int y, char[][] tiles);
+
+    /**
+     * Start a batch of changes. Until the matching endUpdate the changes fire
+     * no events; endUpdate fires one event for the rectangle of all tiles that
+     * changed. Batches can be nested, the event comes at the end of the
+     * outermost one.
+     */
+    public void beginUpdate();
+
+    /**
+     * End a batch of changes started with beginUpdate.
+     */
+    public void endUpdate();
+
     /**
      * The the value of a tile.
      *
@@ -75,7 +97,8 @@ public interface Grid {
     public String getMapAsString();
 
     /**
-     * Add a listener to the model.
+     * Add a listener to the model. The "model" events it gets have the
+     * Rectangle of the changed tiles as new value.
      *
      * @param listener The listener.
      */
@@ -2,6 +2,7 @@ package src.mapeditor.grid;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 
@@ -60,6 +61,7 @@ public class GridCamera implements Camera {
         this.changeSupport = new PropertyChangeSupport(this);
         this.model = new src.mapeditor.grid.GridModel(cols, rows, defaultChar);
         this.camera = new Rectangle(cameraX, cameraY, cameraWidth, cameraHeight);
+        this.model.addPropertyChangeListener(this::modelChanged);
     }
 
 
@@ -88,6 +90,7 @@ public class GridCamera implements Camera {
         this.changeSupport = new PropertyChangeSupport(this);
         this.model = model;
         this.camera = new Rectangle(cameraX, cameraY, cameraWidth, cameraHeight);
+        this.model.addPropertyChangeListener(this::modelChanged);
     }
 
     private void checkValidCameraPosition(int cols, int rows, int cameraWidth, int cameraHeight, int cameraX, int cameraY) {
@@ -189,6 +192,23 @@ public class GridCamera implements Camera {
         firePropertyChange("movedCamera");
     }
 
+    /**
+     * Pass on the changes of the model that can be seen through the camera,
+     * as a "changedArea" event with the Rectangle of the changed tiles in the
+     * coordinates of the camera.
+     *
+     * @param evt The change of the model.
+     */
+    private void modelChanged(PropertyChangeEvent evt) {
+        if (evt.getNewValue() instanceof Rectangle area) {
+            Rectangle visible = area.intersection(camera);
+            if (!visible.isEmpty()) {
+                visible.translate(-camera.x, -camera.y);
+                firePropertyChange("changedArea", visible);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
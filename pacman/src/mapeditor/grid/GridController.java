@@ -36,6 +36,11 @@ public class GridController implements MouseListener, MouseMotionListener, Actio
      */
     private GUIInformation guiInformation;
 
+    /**
+     * The journal the edits are recorded in, null if they cannot be undone.
+     */
+    private EditJournal journal;
+
 //	/**
 //	 * If the drawingMode is on or off.
 //	 */
@@ -49,8 +54,21 @@ public class GridController implements MouseListener, MouseMotionListener, Actio
      *                       information.
      */
     public GridController(Camera camera, GUIInformation guiInformation) {
+        this(camera, guiInformation, null);
+    }
+
+    /**
+     * The GridController which the GridView needs, recording the edits so
+     * they can be undone.
+     * @param camera         The camera which the GridController will command.
+     * @param guiInformation The class that the GridController will query for
+     *                       information.
+     * @param journal        The journal the edits are recorded in, null for none.
+     */
+    public GridController(Camera camera, GUIInformation guiInformation, EditJournal journal) {
         this.camera = camera;
         this.guiInformation = guiInformation;
+        this.journal = journal;
 //		this.drawingMode = true;
     }
 
@@ -71,6 +89,16 @@ public class GridController implements MouseListener, MouseMotionListener, Actio
      */
     @Override
     public void mousePressed(MouseEvent e) {
+        // Take the keys, for moving the camera and undoing
+        e.getComponent().requestFocusInWindow();
+        // A press starts a stroke, undone as one edit
+        if (journal != null && ifLeftMouseButtonPressed(e)) {
+            journal.beginStroke();
+        }
+        paintAt(e);
+    }
+
+    private void paintAt(MouseEvent e) {
         lastClickedTileX = e.getX() / Constants.TILE_WIDTH;
         lastClickedTileY = e.getY() / Constants.TILE_HEIGHT;
         if (ifLeftMouseButtonPressed(e)) {
@@ -87,10 +115,15 @@ public class GridController implements MouseListener, MouseMotionListener, Actio
     }
 
     private void updateTile(int xCor, int yCor) {
-        xCor = Math.max(0, Math.min(xCor, Constants.GRID_WIDTH - 1));
-        yCor = Math.max(0, Math.min(yCor, Constants.GRID_HEIGHT - 1));
+        xCor = Math.max(0, Math.min(xCor, camera.getWidth() - 1));
+        yCor = Math.max(0, Math.min(yCor, camera.getHeight() - 1));
         if (guiInformation.getSelectedTile() != null) {
-            camera.setTile(xCor, yCor, guiInformation.getSelectedTile().getCharacter());
+            char oldChar = camera.getTile(xCor, yCor);
+            char newChar = guiInformation.getSelectedTile().getCharacter();
+            camera.setTile(xCor, yCor, newChar);
+            if (journal != null) {
+                journal.record(camera.getX() + xCor, camera.getY() + yCor, oldChar, newChar);
+            }
         }
     }
 
@@ -115,6 +148,9 @@ public class GridController implements MouseListener, MouseMotionListener, Actio
 
     @Override
     public void mouseReleased(MouseEvent e) {
+        if (journal != null) {
+            journal.endStroke();
+        }
     }
 
     /**
@@ -128,7 +164,7 @@ public class GridController implements MouseListener, MouseMotionListener, Actio
             int newTileY = e.getY() / Constants.TILE_HEIGHT;
             updateCamera(newTileX, newTileY);
         }
-        this.mousePressed(e);
+        this.paintAt(e);
     }
 
     /**
@@ -155,6 +191,13 @@ public class GridController implements MouseListener, MouseMotionListener, Actio
             camera.moveCamera(GridCamera.SOUTH);
         } else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
             camera.moveCamera(GridCamera.WEST);
+        } else if (journal != null && e.isControlDown()) {
+            // Ctrl+Z undoes, Ctrl+Y and Ctrl+Shift+Z redo
+            if (e.getKeyCode() == KeyEvent.VK_Z && !e.isShiftDown()) {
+                journal.undo();
+            } else if (e.getKeyCode() == KeyEvent.VK_Y || e.getKeyCode() == KeyEvent.VK_Z) {
+                journal.redo();
+            }
         }
     }
 
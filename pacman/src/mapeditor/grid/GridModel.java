@@ -1,11 +1,15 @@
 package src.mapeditor.grid;
 
+import java.awt.Rectangle;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.Arrays;
 
 /**
  * An implementation of the interface Grid. It stores characters two
- * dimensionally.
+ * dimensionally, in square chunks. A chunk is only allocated once one of its
+ * tiles differs from the default character, so a large map costs memory in
+ * proportion to the area that was edited.
  *
  * @author Daniel "MaTachi" Jonsson
  * @version 1
@@ -19,9 +23,24 @@ public class GridModel implements Grid {
     public static final int WEST = 3;
 
     /**
-     * The 2D array that describes the editor's 2D map.
+     * Chunks are CHUNK_SIZE x CHUNK_SIZE tiles.
      */
-    private char[][] map;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * The chunks of the map, row by row. A null chunk holds only the default
+     * character.
+     */
+    private char[][] chunks;
+
+    /**
+     * Size of the map, in tiles and in chunks.
+     */
+    private int width;
+    private int height;
+    private int chunkColumns;
 
     /**
      * Default character.
@@ -33,6 +52,16 @@ public class GridModel implements Grid {
      */
     private PropertyChangeSupport changeSupport;
 
+    /**
+     * Depth of the current batch of changes, 0 outside of a batch.
+     */
+    private int updateDepth = 0;
+
+    /**
+     * The tiles changed in the current batch, null if none.
+     */
+    private Rectangle changedArea = null;
+
     /**
      * Constructs the model with number of rows and columns.
      *
@@ -42,49 +71,94 @@ public class GridModel implements Grid {
      *                    default.
      */
     public GridModel(int columns, int rows, char defaultChar) {
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("The map needs at least one row and one column.");
+        }
         this.defaultChar = defaultChar;
         this.changeSupport = new PropertyChangeSupport(this);
-        this.map = createEmptyMap(columns, rows);
+        createEmptyMap(columns, rows);
     }
 
     /**
      * {@inheritDoc}
      */
     public int getWidth() {
-        return map[0].length;
+        return width;
     }
 
     /**
      * {@inheritDoc}
      */
     public int getHeight() {
-        return map.length;
+        return height;
     }
 
     /**
      * {@inheritDoc}
      */
     public void setTile(int x, int y, char c) {
-        map[y][x] = c;
-        firePropertyChange();
+        checkInside(x, y, 1, 1);
+        char[] chunk = chunks[chunkIndex(x, y)];
+        if (chunk == null && c != defaultChar) {
+            chunk = allocateChunk(x, y);
+        }
+        if (chunk != null) {
+            chunk[offsetInChunk(x, y)] = c;
+        }
+        markChanged(x, y, 1, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setTiles(int x, int y, char[][] tiles) {
+        if (tiles.length == 0) {
+            return;
+        }
+        checkInside(x, y, tiles[0].length, tiles.length);
+        for (int row = 0; row < tiles.length; row++) {
+            writeRow(x, y + row, tiles[row], 0, tiles[row].length);
+        }
+        markChanged(x, y, tiles[0].length, tiles.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void endUpdate() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("No batch of changes to end.");
+        }
+        if (--updateDepth == 0 && changedArea != null) {
+            Rectangle area = changedArea;
+            changedArea = null;
+            firePropertyChange(area);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     public char getTile(int x, int y) {
-        return map[y][x];
+        checkInside(x, y, 1, 1);
+        char[] chunk = chunks[chunkIndex(x, y)];
+        return chunk == null ? defaultChar : chunk[offsetInChunk(x, y)];
     }
 
     /**
      * {@inheritDoc}
      */
     public char[][] getMap() {
-        char[][] tmpMap = new char[map.length][map[0].length];
-        for (int y = 0; y < map.length; y++) {
-            for (int x = 0; x < map[0].length; x++) {
-                tmpMap[y][x] = map[y][x];
-            }
+        char[][] tmpMap = new char[height][width];
+        for (int y = 0; y < height; y++) {
+            readRow(0, y, tmpMap[y], 0, width);
         }
         return tmpMap;
     }
@@ -93,7 +167,6 @@ public class GridModel implements Grid {
      * {@inheritDoc}
      */
     public void expandMap(int n, int direction) {
-        char[][] tmpMap;
         int northOffset = 0;
         int eastOffset = 0;
         int southOffset = 0;
@@ -111,30 +184,34 @@ public class GridModel implements Grid {
             throw new IllegalArgumentException("Bad direction.");
         }
 
-        int heightTmpMap = getWidth() + westOffset + eastOffset;
-        int widthTmpMap = getHeight() + northOffset + southOffset;
-        tmpMap = createEmptyMap(heightTmpMap, widthTmpMap);
+        char[][] oldChunks = chunks;
+        int oldChunkColumns = chunkColumns;
+        createEmptyMap(width + westOffset + eastOffset, height + northOffset + southOffset);
 
-        // Copy the old map's data to the new one.
-        for (int y = 0; y < map.length; y++) {
-            for (int x = 0; x < map[0].length; x++) {
-                tmpMap[y + northOffset][x + westOffset] = map[y][x];
+        // Copy the old map's data to the new one. Chunks of default characters stay empty.
+        for (int i = 0; i < oldChunks.length; i++) {
+            char[] chunk = oldChunks[i];
+            if (chunk == null) {
+                continue;
+            }
+            int chunkX = (i % oldChunkColumns) << CHUNK_SHIFT;
+            int chunkY = (i / oldChunkColumns) << CHUNK_SHIFT;
+            int rowLength = Math.min(CHUNK_SIZE, width - westOffset - eastOffset - chunkX);
+            int nbRows = Math.min(CHUNK_SIZE, height - northOffset - southOffset - chunkY);
+            for (int row = 0; row < nbRows; row++) {
+                writeRow(chunkX + westOffset, chunkY + row + northOffset, chunk, row << CHUNK_SHIFT, rowLength);
             }
         }
 
-        map = tmpMap;
-
-        firePropertyChange();
+        markChanged(0, 0, width, height);
     }
 
     /**
      * {@inheritDoc}
      */
     public void fillMap(char[][] map, char character) {
-        for (int y = 0; y < map.length; y++) {
-            for (int x = 0; x < map[0].length; x++) {
-                map[y][x] = character;
-            }
+        for (char[] row : map) {
+            Arrays.fill(row, character);
         }
     }
 
@@ -142,27 +219,96 @@ public class GridModel implements Grid {
      * {@inheritDoc}
      */
     public String getMapAsString() {
-        String s = "";
-        for (int y = 0; y < map.length; y++) {
-            for (int x = 0; x < map[0].length; x++) {
-                s += map[y][x];
-            }
-            s += "\n";
+        StringBuilder s = new StringBuilder(height * (width + 1));
+        char[] row = new char[width];
+        for (int y = 0; y < height; y++) {
+            readRow(0, y, row, 0, width);
+            s.append(row).append('\n');
         }
-        return s;
+        return s.toString();
     }
 
     /**
-     * Returns a new map filled with zeros.
+     * Replaces the map with one of default characters, without allocating any
+     * chunk.
      *
      * @param columns The number of columns.
      * @param rows    The number of rows.
-     * @return char[][] A 2D array of default characters.
      */
-    private char[][] createEmptyMap(int columns, int rows) {
-        char[][] tmpMap = new char[rows][columns];
-        fillMap(tmpMap, defaultChar);
-        return tmpMap;
+    private void createEmptyMap(int columns, int rows) {
+        this.width = columns;
+        this.height = rows;
+        this.chunkColumns = (columns + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunks = new char[chunkColumns * ((rows + CHUNK_MASK) >> CHUNK_SHIFT)][];
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (y >> CHUNK_SHIFT) * chunkColumns + (x >> CHUNK_SHIFT);
+    }
+
+    private static int offsetInChunk(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    private char[] allocateChunk(int x, int y) {
+        char[] chunk = new char[CHUNK_SIZE * CHUNK_SIZE];
+        Arrays.fill(chunk, defaultChar);
+        chunks[chunkIndex(x, y)] = chunk;
+        return chunk;
+    }
+
+    /**
+     * Copies part of a row of the map, a chunk at a time.
+     */
+    private void readRow(int x, int y, char[] dest, int destPos, int length) {
+        while (length > 0) {
+            int count = Math.min(length, CHUNK_SIZE - (x & CHUNK_MASK));
+            char[] chunk = chunks[chunkIndex(x, y)];
+            if (chunk == null) {
+                Arrays.fill(dest, destPos, destPos + count, defaultChar);
+            } else {
+                System.arraycopy(chunk, offsetInChunk(x, y), dest, destPos, count);
+            }
+            x += count;
+            destPos += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes part of a row of the map, a chunk at a time. A chunk is only
+     * allocated for a part that is not all default characters.
+     */
+    private void writeRow(int x, int y, char[] src, int srcPos, int length) {
+        while (length > 0) {
+            int count = Math.min(length, CHUNK_SIZE - (x & CHUNK_MASK));
+            char[] chunk = chunks[chunkIndex(x, y)];
+            if (chunk == null && !isAllDefault(src, srcPos, count)) {
+                chunk = allocateChunk(x, y);
+            }
+            if (chunk != null) {
+                System.arraycopy(src, srcPos, chunk, offsetInChunk(x, y), count);
+            }
+            x += count;
+            srcPos += count;
+            length -= count;
+        }
+    }
+
+    private boolean isAllDefault(char[] src, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            if (src[i] != defaultChar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkInside(int x, int y, int columns, int rows) {
+        if (x < 0 || y < 0 || x + columns > width || y + rows > height) {
+            throw new ArrayIndexOutOfBoundsException("Tiles (" + x + ", " + y + ") to (" + (x + columns - 1)
+                    + ", " + (y + rows - 1) + ") are outside the " + width + "x" + height + " map.");
+        }
     }
 
     /**
@@ -179,7 +325,19 @@ public class GridModel implements Grid {
         changeSupport.removePropertyChangeListener(listener);
     }
 
-    private void firePropertyChange() {
-        changeSupport.firePropertyChange("model", false, true);
+    /**
+     * Announce a change now, or at the end of the current batch.
+     */
+    private void markChanged(int x, int y, int width, int height) {
+        Rectangle area = new Rectangle(x, y, width, height);
+        if (updateDepth > 0) {
+            changedArea = changedArea == null ? area : changedArea.union(area);
+        } else {
+            firePropertyChange(area);
+        }
+    }
+
+    private void firePropertyChange(Rectangle area) {
+        changeSupport.firePropertyChange("model", null, area);
     }
 }
@@ -3,6 +3,7 @@ package src.mapeditor.grid;
 import src.mapeditor.editor.Constants;
 import src.mapeditor.editor.GUIInformation;
 import src.mapeditor.editor.Tile;
+import src.mapeditor.editor.TileAtlas;
 
 import javax.swing.*;
 import java.awt.*;
@@ -11,7 +12,9 @@ import java.beans.PropertyChangeListener;
 import java.util.List;
 
 /**
- * A class which shows a Grid graphically as a JPanel.
+ * A class which shows a Grid graphically as a JPanel. The cells seen through
+ * the camera are painted onto the panel itself, and only the cells that
+ * changed are painted again.
  *
  * @author Daniel "MaTachi" Jonsson
  * @version 1
@@ -27,14 +30,9 @@ public class GridView extends JPanel implements PropertyChangeListener {
     private Camera camera;
 
     /**
-     * References to all tiles.
+     * Images of the available tiles.
      */
-    private GridTile[][] map;
-
-    /**
-     * Available tiles.
-     */
-    private List<? extends Tile> tiles;
+    private TileAtlas atlas;
 
     /**
      * Creates a grid panel.
@@ -44,26 +42,34 @@ public class GridView extends JPanel implements PropertyChangeListener {
      * @param tiles          List of available tiles.
      */
     public GridView(GUIInformation guiInformation, Camera camera, List<? extends Tile> tiles) {
-        super(new GridLayout(camera.getHeight(), camera.getWidth()));
+        this(guiInformation, camera, tiles, null);
+    }
 
-        this.tiles = tiles;
+    /**
+     * Creates a grid panel whose edits can be undone.
+     *
+     * @param guiInformation Information from the GUI that the grid requires.
+     * @param camera         The camera that the grid should show.
+     * @param tiles          List of available tiles.
+     * @param journal        The journal the edits are recorded in, null for none.
+     */
+    public GridView(GUIInformation guiInformation, Camera camera, List<? extends Tile> tiles,
+                    EditJournal journal) {
+        this.atlas = new TileAtlas(tiles);
 
         this.camera = camera;
         this.camera.addPropertyChangeListener(this);
-        GridController controller = new GridController(camera, guiInformation);
+
+        /** One controller takes the mouse and the keys of the whole grid. */
+        GridController controller = new GridController(camera, guiInformation, journal);
         this.addMouseListener(controller);
         this.addMouseMotionListener(controller);
+        this.addKeyListener(controller);
+        this.setFocusable(true);
 
-        /** Add all tiles to the grid. */
-        map = new GridTile[camera.getHeight()][camera.getWidth()];
-        for (int y = 0; y < camera.getHeight(); y++) {
-            for (int x = 0; x < camera.getWidth(); x++) {
-                map[y][x] = new GridTile(tiles.get(0));
-                map[y][x].addKeyListener(controller);
-                map[y][x].setFocusable(true);
-                this.add(map[y][x]);
-            }
-        }
+        this.setOpaque(true);
+        this.setPreferredSize(new Dimension(camera.getWidth() * Constants.TILE_WIDTH,
+                camera.getHeight() * Constants.TILE_HEIGHT));
     }
 
     /**
@@ -75,6 +81,10 @@ public class GridView extends JPanel implements PropertyChangeListener {
             redrawGrid();
         } else if (evt.getPropertyName().equals("changedTile")) {
             redrawTile((Point) evt.getNewValue());
+        } else if (evt.getPropertyName().equals("changedArea")) {
+            Rectangle area = (Rectangle) evt.getNewValue();
+            this.repaint(area.x * Constants.TILE_WIDTH, area.y * Constants.TILE_HEIGHT,
+                    area.width * Constants.TILE_WIDTH, area.height * Constants.TILE_HEIGHT);
         }
     }
 
@@ -82,16 +92,7 @@ public class GridView extends JPanel implements PropertyChangeListener {
      * Redraw the whole grid.
      */
     public void redrawGrid() {
-        for (int y = 0; y < Constants.GRID_HEIGHT; y++) {
-            for (int x = 0; x < Constants.GRID_WIDTH; x++) {
-                for (Tile t : tiles) {
-                    if (camera.getTile(x, y) == t.getCharacter()) {
-                        map[y][x].setTile(t);
-                        map[y][x].grabFocus();
-                    }
-                }
-            }
-        }
+        this.grabFocus();
         this.repaint();
     }
 
@@ -101,52 +102,28 @@ public class GridView extends JPanel implements PropertyChangeListener {
      * @param position The tile's position in the grid.
      */
     private void redrawTile(Point position) {
-        for (Tile t : tiles) {
-            if (camera.getTile(position.x, position.y) == t.getCharacter()) {
-                map[position.y][position.x].setTile(t);
-            }
-        }
+        this.repaint(position.x * Constants.TILE_WIDTH, position.y * Constants.TILE_HEIGHT,
+                Constants.TILE_WIDTH, Constants.TILE_HEIGHT);
     }
 
     /**
-     * How the tiles are represented graphically.
+     * Paint the cells inside the area to paint.
      */
-    private class GridTile extends JPanel {
-
-        private static final long serialVersionUID = 8127828009105626334L;
-
-        /**
-         * The tile that the GridTile should show.
-         */
-        private Tile tile;
-
-        /**
-         * Construct a tile.
-         *
-         * @param tile The tile that the GridTile should show.
-         */
-        public GridTile(Tile tile) {
-            this.tile = tile;
-        }
-
-        /**
-         * Give the JPanel GridTile a new tile that it should show.
-         *
-         * @param tile
-         */
-        public void setTile(Tile tile) {
-            this.tile = tile;
-            this.repaint();
+    @Override
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
         }
-
-        @Override
-        public void paintComponent(Graphics g) {
-            g.drawImage(tile.getImage(), 0, 0, null);
-//			g.setColor(Color.DARK_GRAY);
-//			g.drawRect(0, 0, Constants.TILE_WIDTH, Constants.TILE_HEIGHT);
-//			if (showingGrid) {
-//				g.drawRect(0, 0, 30, 30);
-//			}
+        int firstX = Math.max(0, clip.x / Constants.TILE_WIDTH);
+        int firstY = Math.max(0, clip.y / Constants.TILE_HEIGHT);
+        int lastX = Math.min(camera.getWidth() - 1, (clip.x + clip.width - 1) / Constants.TILE_WIDTH);
+        int lastY = Math.min(camera.getHeight() - 1, (clip.y + clip.height - 1) / Constants.TILE_HEIGHT);
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                atlas.drawTile(g, camera.getTile(x, y), x * Constants.TILE_WIDTH, y * Constants.TILE_HEIGHT);
+            }
         }
     }
 }
@@ -0,0 +1,51 @@
+package src.mapeditor.util;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Read compiled binary map files, see CompiledMap and MapCompiler
+ */
+public class BinaryMapConverter implements MapConverter {
+    public static final String FILE_SUFFIX = ".pmap";
+
+    /**
+     * Convert a compiled map file into GameMap
+     *
+     * @param filename the name of the file
+     * @return GameMap
+     */
+    @Override
+    public GameMap convertMapFile(String filename) {
+        try {
+            return CompiledMap.read(new File(filename)).toGameMap();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String getFileSuffix() {
+        return FILE_SUFFIX;
+    }
+
+    /**
+     * Choose the converter of a map folder: XML maps only, compiled maps only, or the XML
+     * maps read through their compiled copies when the folder holds both
+     *
+     * @param folderName folder name
+     * @return the converter of the folder
+     */
+    public static MapConverter forFolder(String folderName) {
+        boolean hasCompiledMaps = hasFiles(folderName, FILE_SUFFIX);
+        if (!hasCompiledMaps) {
+            return new XMLMapConverter();
+        }
+        return hasFiles(folderName, ".xml") ? new CompiledCopyMapConverter() : new BinaryMapConverter();
+    }
+
+    private static boolean hasFiles(String folderName, String suffix) {
+        File[] files = new File(folderName).listFiles((dir, name) -> name.endsWith(suffix));
+        return files != null && files.length > 0;
+    }
+}
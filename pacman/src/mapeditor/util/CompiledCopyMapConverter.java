@@ -0,0 +1,30 @@
+package src.mapeditor.util;
+
+import java.io.File;
+
+/**
+ * Read the XML maps of a folder that also holds compiled maps, such as a folder
+ * compiled into itself. The XML files are the levels; each one is read from its
+ * compiled copy when that is at least as new, and from the XML when it was edited
+ * since it was compiled.
+ */
+public class CompiledCopyMapConverter implements MapConverter {
+    private final MapConverter xmlConverter = new XMLMapConverter();
+    private final MapConverter binaryConverter = new BinaryMapConverter();
+
+    /**
+     * Convert an XML map file into GameMap, through its compiled copy if it is up to date
+     *
+     * @param filename the name of the XML file
+     * @return GameMap
+     */
+    @Override
+    public GameMap convertMapFile(String filename) {
+        File xmlFile = new File(filename);
+        File compiledFile = new File(xmlFile.getParentFile(), MapCompiler.toCompiledName(xmlFile.getName()));
+        if (compiledFile.isFile() && compiledFile.lastModified() >= xmlFile.lastModified()) {
+            return binaryConverter.convertMapFile(compiledFile.getPath());
+        }
+        return xmlConverter.convertMapFile(filename);
+    }
+}
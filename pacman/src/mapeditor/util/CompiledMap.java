@@ -0,0 +1,325 @@
+package src.mapeditor.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A level in the compiled binary format. The file holds a header, the tiles packed
+ * two per byte and the table of actors and portals, so loading it needs no parsing.
+ * <p>
+ * Layout, big-endian: the magic "PMAP", a version byte, the width and height as
+ * shorts, the tiles row by row (high nibble first), then the number of entries as an
+ * int and every entry as a kind byte, a column short and a row short. Tiles are
+ * numbered like the editor characters, 'a' (path) being 0.
+ */
+public class CompiledMap {
+    private static final byte[] MAGIC = {'P', 'M', 'A', 'P'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 2 * Short.BYTES;
+    private static final int ENTRY_SIZE = 1 + 2 * Short.BYTES;
+    private static final long MIN_MAPPED_SIZE = 64 * 1024;
+
+    // Tiles, as the editor characters minus 'a'
+    private static final int PATH = 0;
+    private static final int WALL = 1;
+    private static final int PILL = 2;
+    private static final int GOLD = 3;
+    private static final int ICE = 4;
+    private static final int PACMAN = 5;
+    private static final int TROLL = 6;
+    private static final int TX5 = 7;
+    private static final int PORTAL_WHITE = 8;
+
+    // Kinds of table entries, the actors first and then the portals, as named in GameMap
+    private static final String[] ACTOR_NAMES = {"pill", "pacman", "TX5", "Troll", "Gold"};
+    private static final String[] PORTAL_NAMES = {"PortalWhiteTile", "PortalYellowTile",
+            "PortalDarkGoldTile", "PortalDarkGrayTile"};
+
+    private final int width;
+    private final int height;
+    private final byte[] tiles;
+    // Kind, column and row of every entry, in the order of the GameMap lists
+    private final int[] entries;
+
+    private CompiledMap(int width, int height, byte[] tiles, int[] entries) {
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.entries = entries;
+    }
+
+    /**
+     * Compile a converted map
+     *
+     * @param map the map, as given by a MapConverter
+     * @return the compiled map
+     */
+    public static CompiledMap fromGameMap(GameMap map) {
+        int width = map.getNbHorzCells();
+        int height = map.getNbVertCells();
+        String cells = map.getMap();
+        if (cells.length() != width * height || width > Short.MAX_VALUE || height > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("The map has " + cells.length() + " cells instead of "
+                    + width + "x" + height);
+        }
+        byte[] tiles = new byte[cells.length()];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = (byte) switch (cells.charAt(i)) {
+                case 'x' -> WALL;
+                case '.' -> PILL;
+                case 'g' -> GOLD;
+                case 'i' -> ICE;
+                case '1', '2', '3', '4' -> PORTAL_WHITE + cells.charAt(i) - '1';
+                default -> PATH;
+            };
+        }
+
+        List<int[]> entries = new ArrayList<>();
+        for (int kind = 0; kind < ACTOR_NAMES.length; kind++) {
+            for (int[] loc : map.getActors().getOrDefault(ACTOR_NAMES[kind], List.of())) {
+                entries.add(new int[]{kind, loc[0], loc[1]});
+            }
+        }
+        for (int kind = 0; kind < PORTAL_NAMES.length; kind++) {
+            // Portals are stored as {row, col} in GameMap
+            for (int[] loc : map.getPortals().getOrDefault(PORTAL_NAMES[kind], List.of())) {
+                entries.add(new int[]{ACTOR_NAMES.length + kind, loc[1], loc[0]});
+            }
+        }
+        int[] flatEntries = new int[entries.size() * 3];
+        for (int i = 0; i < entries.size(); i++) {
+            int[] entry = entries.get(i);
+            System.arraycopy(entry, 0, flatEntries, i * 3, 3);
+            // The map string has no character for the actors standing on a path
+            int kind = entry[0];
+            int index = entry[2] * width + entry[1];
+            if (index >= 0 && index < tiles.length) {
+                if (kind == 1) {
+                    tiles[index] = PACMAN;
+                } else if (kind == 2) {
+                    tiles[index] = TX5;
+                } else if (kind == 3) {
+                    tiles[index] = TROLL;
+                }
+            }
+        }
+        return new CompiledMap(width, height, tiles, flatEntries);
+    }
+
+    /**
+     * Compile the tiles of the editor, without going through a map file
+     *
+     * @param rows the editor characters, row by row, as given by Grid.getMap
+     * @return the compiled map, the same as a saved and compiled file of the tiles
+     */
+    public static CompiledMap fromTileCharacters(char[][] rows) {
+        int height = rows.length;
+        int width = height == 0 ? 0 : rows[0].length;
+        if (width > Short.MAX_VALUE || height > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("The map is too large: " + width + "x" + height);
+        }
+        byte[] tiles = new byte[width * height];
+        // Entries in row order, so every actor and portal list keeps the order of a map file
+        int[] entries = new int[tiles.length * 3];
+        int nbEntries = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int tile = rows[y][x] - 'a';
+                if (tile < PATH || tile > PORTAL_WHITE + PORTAL_NAMES.length - 1) {
+                    // Saved as a path tile by the editor
+                    tile = PATH;
+                }
+                tiles[y * width + x] = (byte) tile;
+                int kind = switch (tile) {
+                    case PILL -> 0;
+                    case PACMAN -> 1;
+                    case TX5 -> 2;
+                    case TROLL -> 3;
+                    case GOLD -> 4;
+                    case PORTAL_WHITE, PORTAL_WHITE + 1, PORTAL_WHITE + 2, PORTAL_WHITE + 3 ->
+                            ACTOR_NAMES.length + tile - PORTAL_WHITE;
+                    default -> -1;
+                };
+                if (kind >= 0) {
+                    entries[nbEntries++] = kind;
+                    entries[nbEntries++] = x;
+                    entries[nbEntries++] = y;
+                }
+            }
+        }
+        return new CompiledMap(width, height, tiles, Arrays.copyOf(entries, nbEntries));
+    }
+
+    /**
+     * Read a compiled map, through a memory mapping of the file if it is large
+     *
+     * @param file the compiled map
+     * @return the map
+     * @throws IOException if the file cannot be read or is not a compiled map
+     */
+    public static CompiledMap read(File file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MIN_MAPPED_SIZE) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                // Mapping costs more than it saves on a file of a few hundred bytes
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading
+                }
+                buffer.flip();
+            }
+        }
+        return read(buffer, file.toString());
+    }
+
+    /**
+     * Read a compiled map from a buffer
+     *
+     * @param buffer the compiled map, from its position on
+     * @param source name of the source for the error messages
+     * @return the map
+     * @throws IOException if the buffer does not hold a compiled map
+     */
+    static CompiledMap read(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IOException(source + " is not a compiled map");
+        }
+        for (byte b : MAGIC) {
+            if (buffer.get() != b) {
+                throw new IOException(source + " is not a compiled map");
+            }
+        }
+        if (buffer.get() != VERSION) {
+            throw new IOException(source + " is compiled with another version");
+        }
+        int width = buffer.getShort();
+        int height = buffer.getShort();
+        int nbCells = width * height;
+        if (width < 0 || height < 0 || buffer.remaining() < (nbCells + 1) / 2 + Integer.BYTES) {
+            throw new IOException(source + " is truncated");
+        }
+        byte[] tiles = new byte[nbCells];
+        for (int i = 0; i < nbCells; i += 2) {
+            int pair = buffer.get();
+            tiles[i] = (byte) ((pair >> 4) & 0xF);
+            if (i + 1 < nbCells) {
+                tiles[i + 1] = (byte) (pair & 0xF);
+            }
+        }
+        int nbEntries = buffer.getInt();
+        if (nbEntries < 0 || buffer.remaining() < (long) nbEntries * ENTRY_SIZE) {
+            throw new IOException(source + " is truncated");
+        }
+        int[] entries = new int[nbEntries * 3];
+        for (int i = 0; i < entries.length; i += 3) {
+            entries[i] = buffer.get();
+            entries[i + 1] = buffer.getShort();
+            entries[i + 2] = buffer.getShort();
+            if (entries[i] < 0 || entries[i] >= ACTOR_NAMES.length + PORTAL_NAMES.length) {
+                throw new IOException(source + " has an unknown entry kind " + entries[i]);
+            }
+        }
+        return new CompiledMap(width, height, tiles, entries);
+    }
+
+    /**
+     * Write the map to a file
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        Files.write(file.toPath(), toBytes());
+    }
+
+    /**
+     * The map in the compiled format
+     *
+     * @return the bytes of a compiled map file
+     */
+    byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (tiles.length + 1) / 2 + Integer.BYTES
+                + entries.length / 3 * ENTRY_SIZE);
+        buffer.put(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putShort((short) width);
+        buffer.putShort((short) height);
+        for (int i = 0; i < tiles.length; i += 2) {
+            int low = i + 1 < tiles.length ? tiles[i + 1] : 0;
+            buffer.put((byte) (tiles[i] << 4 | low));
+        }
+        buffer.putInt(entries.length / 3);
+        for (int i = 0; i < entries.length; i += 3) {
+            buffer.put((byte) entries[i]);
+            buffer.putShort((short) entries[i + 1]);
+            buffer.putShort((short) entries[i + 2]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * The map as XMLMapConverter would have given it
+     *
+     * @return the game map
+     */
+    public GameMap toGameMap() {
+        StringBuilder sb = new StringBuilder(tiles.length);
+        for (byte tile : tiles) {
+            sb.append(switch (tile) {
+                case WALL -> 'x';
+                case PILL -> '.';
+                case GOLD -> 'g';
+                case ICE -> 'i';
+                case PORTAL_WHITE, PORTAL_WHITE + 1, PORTAL_WHITE + 2, PORTAL_WHITE + 3 ->
+                        (char) ('1' + tile - PORTAL_WHITE);
+                default -> ' ';
+            });
+        }
+
+        Map<String, List<int[]>> actors = new HashMap<>();
+        Map<String, List<int[]>> portals = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 3) {
+            int kind = entries[i];
+            int col = entries[i + 1];
+            int row = entries[i + 2];
+            if (kind < ACTOR_NAMES.length) {
+                actors.computeIfAbsent(ACTOR_NAMES[kind], name -> new ArrayList<>()).add(new int[]{col, row});
+            } else {
+                portals.computeIfAbsent(PORTAL_NAMES[kind - ACTOR_NAMES.length], name -> new ArrayList<>())
+                        .add(new int[]{row, col});
+            }
+        }
+        return new GameMap(actors, portals, sb.toString(), width, height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Tile of a cell as the editor character
+     *
+     * @param x column
+     * @param y row
+     * @return the editor character, 'a' to 'l'
+     */
+    public char getTileCharacter(int x, int y) {
+        return (char) ('a' + tiles[y * width + x]);
+    }
+}
@@ -1,9 +1,8 @@
 package src.mapeditor.util;
 
+import src.utility.EventSink;
+
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,15 +11,26 @@ import java.util.regex.Pattern;
  * Static class to check if the game map folder is valid.
  */
 public class GameChecker {
-    private static final String logOutput = "Log.txt";
+    /**
+     * Check if the list of files in the folder is valid
+     *
+     * @param folderName folder name
+     * @param log        where the problems found are written
+     * @return valid maps
+     */
+    public static List<File> gameCheck(String folderName, EventSink log) {
+        return gameCheck(folderName, log, ".xml");
+    }
 
     /**
      * Check if the list of files in the folder is valid
      *
      * @param folderName folder name
+     * @param log        where the problems found are written
+     * @param fileSuffix suffix of the map files, such as ".xml"
      * @return valid maps
      */
-    public static List<File> gameCheck(String folderName) {
+    public static List<File> gameCheck(String folderName, EventSink log, String fileSuffix) {
 
         File folder = new File(folderName);
 
@@ -40,18 +50,10 @@ public class GameChecker {
         File[] files = folder.listFiles();
         List<File> validMaps = new ArrayList<>();
 
-        PrintWriter logWriter = null;
-
-        try {
-            logWriter = new PrintWriter(new FileWriter(logOutput));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
         assert files != null;
         // Check if the files are valid
+        Pattern pattern = Pattern.compile("^(\\d+).*" + Pattern.quote(fileSuffix));
         for (File file : files) {
-            Pattern pattern = Pattern.compile("^(\\d+).*\\.xml");
             Matcher matcher = pattern.matcher(file.getName());
             if (matcher.find()) {
                 int level = Integer.parseInt(matcher.group(1));
@@ -63,32 +65,26 @@ public class GameChecker {
 
         // Check if there are multiple maps at same level
         for (Map.Entry<Integer, List<File>> entry : levelMaps.entrySet()) {
-            if (entry.getValue().size() > 1 && logWriter != null) {
-                logWriter.print("Game " + folderName + " - " +
+            if (entry.getValue().size() > 1) {
+                StringBuilder line = new StringBuilder("Game " + folderName + " - " +
                         "multiple maps at same level: ");
                 for (File file : entry.getValue()) {
-                    logWriter.print(file.getName() + "; ");
+                    line.append(file.getName()).append("; ");
                 }
-                logWriter.println();
-                logWriter.close();
+                log.writeLine(line.toString());
                 return null;
             }
         }
 
         // Check if there are no valid maps
-        if (validMaps.size() == 0 && logWriter != null) {
-            logWriter.println("Game " + folderName + " - " + "no maps found");
-            logWriter.close();
+        if (validMaps.size() == 0) {
+            log.writeLine("Game " + folderName + " - " + "no maps found");
             return null;
         }
 
         // sort the levels
         validMaps.sort(Comparator.comparing(File::getName));
 
-        if (logWriter != null) {
-            logWriter.close();
-        }
-
         return validMaps;
     }
 }
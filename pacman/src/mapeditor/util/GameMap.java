@@ -25,8 +25,22 @@ public class GameMap {
      * @param map     map in string
      */
     public GameMap(Map<String, List<int[]>> actors, Map<String, List<int[]>> portals, String map) {
-        this.nbHorzCells = DEFAULT_NBHORZCELLS;
-        this.nbVertCells = DEFAULT_NBVERTCELLS;
+        this(actors, portals, map, DEFAULT_NBHORZCELLS, DEFAULT_NBVERTCELLS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param actors      actors in the map
+     * @param portals     portals in the map
+     * @param map         map in string
+     * @param nbHorzCells width of the map
+     * @param nbVertCells height of the map
+     */
+    public GameMap(Map<String, List<int[]>> actors, Map<String, List<int[]>> portals, String map,
+                   int nbHorzCells, int nbVertCells) {
+        this.nbHorzCells = nbHorzCells;
+        this.nbVertCells = nbVertCells;
         this.actors = actors;
         this.portals = portals;
         this.map = map;
@@ -47,4 +61,12 @@ public class GameMap {
     public Map<String, List<int[]>> getPortals() {
         return portals;
     }
+
+    public int getNbHorzCells() {
+        return nbHorzCells;
+    }
+
+    public int getNbVertCells() {
+        return nbVertCells;
+    }
 }
\ No newline at end of file
@@ -1,255 +1,346 @@
 package src.mapeditor.util;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import src.utility.EventSink;
+
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Static class for checking the validity of the level (single map)
  */
 public class LevelChecker {
-    private static final String logOutput = "Log.txt";
+    /**
+     * The checks of a level, in the order their problems are logged
+     */
+    public static final List<Supplier<LevelRule>> DEFAULT_RULES = List.of(OnePacmanRule::new,
+            PortalPairsRule::new, PillsAndGoldRule::new, AccessibilityRule::new);
 
     /**
      * Check if the level is valid
      *
      * @param level level
+     * @param log   where the problems found are written
      * @return true if the level is valid
      */
-    public static boolean levelCheck(String level, GameMap gameMap) {
-        PrintWriter logWriter = null;
+    public static boolean levelCheck(String level, GameMap gameMap, EventSink log) {
+        return levelCheck(level, gameMap, log, DEFAULT_RULES);
+    }
 
-        try {
-            logWriter = new PrintWriter(new FileWriter(logOutput));
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Check if the level is valid with the given rules. The map is walked once for all
+     * of them: every cell in row order, then the actors, then the portals.
+     *
+     * @param level level
+     * @param log   where the problems found are written
+     * @param rules creates the rules, a new set for every level
+     * @return true if the level passes every rule
+     */
+    public static boolean levelCheck(String level, GameMap gameMap, EventSink log,
+                                     List<Supplier<LevelRule>> rules) {
+        LevelRule[] checks = new LevelRule[rules.size()];
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = rules.get(i).get();
+            checks[i].start(gameMap);
         }
 
-        boolean check1 = onePacman(level, gameMap, logWriter);
-        boolean check2 = twoTiles(level, gameMap, logWriter);
-        boolean check3 = checkPG(level, gameMap, logWriter);
-        boolean check4 = isAccessible(level, gameMap, check1, logWriter);
-
-        if (logWriter != null) {
-            logWriter.close();
+        String grid = gameMap.getMap();
+        int width = gameMap.getNbHorzCells();
+        int col = 0;
+        int row = 0;
+        for (int i = 0; i < grid.length(); i++) {
+            char tile = grid.charAt(i);
+            for (LevelRule check : checks) {
+                check.visitCell(i, col, row, tile);
+            }
+            if (++col == width) {
+                col = 0;
+                row++;
+            }
+        }
+        for (Map.Entry<String, List<int[]>> entry : gameMap.getActors().entrySet()) {
+            for (int[] position : entry.getValue()) {
+                for (LevelRule check : checks) {
+                    check.visitActor(entry.getKey(), position[0], position[1]);
+                }
+            }
+        }
+        // Portals are stored as {row, col}
+        for (Map.Entry<String, List<int[]>> entry : gameMap.getPortals().entrySet()) {
+            for (int[] position : entry.getValue()) {
+                for (LevelRule check : checks) {
+                    check.visitPortal(entry.getKey(), position[1], position[0]);
+                }
+            }
         }
 
-        return check1 && check2 && check3 && check4;
+        boolean isValid = true;
+        for (LevelRule check : checks) {
+            isValid &= check.report(level, log);
+        }
+        return isValid;
     }
 
     /**
      * Check 1
      * Check if there is exactly one starting point for PacMan
-     *
-     * @param level   level
-     * @param gameMap game map
-     * @return true if there is exactly one starting point for PacMan
      */
-    public static boolean onePacman(String level, GameMap gameMap, PrintWriter logWriter) {
-        Map<String, List<int[]>> actors = gameMap.getActors();
-        // Check if there is no starting point for PacMan
-        if (!actors.containsKey("pacman")) {
-            if (logWriter != null) {
-                logWriter.println("Level " + level + " - no start for PacMan");
+    public static class OnePacmanRule implements LevelRule {
+        private final List<int[]> starts = new ArrayList<>();
+
+        @Override
+        public void visitActor(String name, int col, int row) {
+            if (name.equals("pacman")) {
+                starts.add(new int[]{col, row});
             }
-            return false;
         }
-        // Check if there is more than one starting point for PacMan
-        List<int[]> pacmansList = actors.get("pacman");
-        if (pacmansList.size() != 1) {
-            StringBuilder startPointListString = new StringBuilder();
-            for (int[] coords : pacmansList) {
-                startPointListString.append("(").append(coords[1] + 1).append(",").append(coords[0] + 1).append("); ");
+
+        @Override
+        public boolean report(String level, EventSink log) {
+            // Check if there is no starting point for PacMan
+            if (starts.isEmpty()) {
+                log.writeLine("Level " + level + " - no start for PacMan");
+                return false;
             }
-            // Remove last "; " from the stringBuilder
-            startPointListString.setLength(startPointListString.length() - 2);
-            if (logWriter != null) {
-                logWriter.println("Level " + level + " - more than one start for Pacman: " + startPointListString);
+            // Check if there is more than one starting point for PacMan
+            if (starts.size() != 1) {
+                StringBuilder startPointListString = new StringBuilder();
+                for (int[] coords : starts) {
+                    startPointListString.append("(").append(coords[1] + 1).append(",").append(coords[0] + 1)
+                            .append("); ");
+                }
+                // Remove last "; " from the stringBuilder
+                startPointListString.setLength(startPointListString.length() - 2);
+                log.writeLine("Level " + level + " - more than one start for Pacman: " + startPointListString);
+                return false;
             }
-            return false;
+            return true;
         }
-        return true;
     }
 
     /**
      * Check 2
      * Check if there are exactly two tiles for each portal appearing on the map
-     *
-     * @param level   level
-     * @param gameMap game map
-     * @return true if there are exactly two tiles for each portal appearing on the map
      */
-    public static boolean twoTiles(String level, GameMap gameMap, PrintWriter logWriter) {
-        Map<String, List<int[]>> portals = gameMap.getPortals();
-        for (Map.Entry<String, List<int[]>> entry : portals.entrySet()) {
-            String key = entry.getKey();
-            List<int[]> value = entry.getValue();
-
-            // Check if there are exactly two tiles for each portal appearing on the map
-            if (key.equals("PortalDarkGoldTile") || key.equals("PortalDarkGrayTile")
-                    || key.equals("PortalWhiteTile") || key.equals("PortalYellowTile")) {
+    public static class PortalPairsRule implements LevelRule {
+        private static final Set<String> PORTAL_NAMES = Set.of("PortalDarkGoldTile", "PortalDarkGrayTile",
+                "PortalWhiteTile", "PortalYellowTile");
+
+        // Tiles of every portal, in the order the portals are first seen
+        private final Map<String, List<int[]>> tiles = new LinkedHashMap<>();
+
+        @Override
+        public void visitPortal(String name, int col, int row) {
+            if (PORTAL_NAMES.contains(name)) {
+                tiles.computeIfAbsent(name, key -> new ArrayList<>()).add(new int[]{col, row});
+            }
+        }
+
+        @Override
+        public boolean report(String level, EventSink log) {
+            for (Map.Entry<String, List<int[]>> entry : tiles.entrySet()) {
+                List<int[]> value = entry.getValue();
                 if (value.size() != 2) {
                     StringBuilder portalCoordinatesString = new StringBuilder();
                     for (int[] coords : value) {
-                        portalCoordinatesString.append("(").append(coords[1] + 1).append(",")
-                                .append(coords[0] + 1).append(")" + "; ");
+                        portalCoordinatesString.append("(").append(coords[0] + 1).append(",")
+                                .append(coords[1] + 1).append(")" + "; ");
                     }
 
                     // Remove the last "; " from the stringBuilder
                     portalCoordinatesString.setLength(portalCoordinatesString.length() - 2);
 
-                    if (logWriter != null) {
-                        logWriter.println("Level " + level + " - portal " + key
-                                + " count is not 2: " + portalCoordinatesString);
-                    }
+                    log.writeLine("Level " + level + " - portal " + entry.getKey()
+                            + " count is not 2: " + portalCoordinatesString);
                     return false;
                 }
             }
+            return true;
         }
-        return true;
     }
 
     /**
      * Check 3
      * Check if there are at least totally two pills and golds
-     *
-     * @param level   level
-     * @param gameMap game map
-     * @return true if there are at least totally two pills and golds
      */
-    public static boolean checkPG(String level, GameMap gameMap, PrintWriter logWriter) {
-        Map<String, List<int[]>> actors = gameMap.getActors();
-        int numPills = 0;
-        int numGolds = 0;
-        for (Map.Entry<String, List<int[]>> entry : actors.entrySet()) {
-            String key = entry.getKey();
+    public static class PillsAndGoldRule implements LevelRule {
+        private int numPills = 0;
+        private int numGolds = 0;
 
-            if (key.equals("pill")) {
-                numPills += entry.getValue().size();
-            } else if (key.equals("Gold")) {
-                numGolds += entry.getValue().size();
+        @Override
+        public void visitActor(String name, int col, int row) {
+            if (name.equals("pill")) {
+                numPills++;
+            } else if (name.equals("Gold")) {
+                numGolds++;
             }
         }
 
-        // Check if there are less than 2 pills or golds
-        if (numPills < 2 || numGolds < 2) {
-            if (logWriter != null) {
-                logWriter.println("Level " + level + " - less than 2 Gold and Pill");
+        @Override
+        public boolean report(String level, EventSink log) {
+            // Check if there are less than 2 pills or golds
+            if (numPills < 2 || numGolds < 2) {
+                log.writeLine("Level " + level + " - less than 2 Gold and Pill");
+                return false;
             }
-            return false;
-        } else {
             return true;
         }
     }
 
     /**
      * Check 4
-     * Check if all golds and pills are accessible for PacMan
-     *
-     * @param gameMap game map
-     * @return true if all elements are accessible
+     * Check if all golds and pills are accessible for PacMan. Every gold and pill that
+     * cannot be reached is logged; none is reachable without a single start for PacMan.
      */
-    public static boolean isAccessible(String level, GameMap gameMap, boolean check1, PrintWriter logWriter) {
-        List<String> goldPositions = new ArrayList<>();
-        List<String> pillPositions = new ArrayList<>();
-        String grid = gameMap.getMap();
+    public static class AccessibilityRule implements LevelRule {
+        private String grid;
+        private int width;
+        private int height;
+        // Where each portal tile leads, -1 for other cells. The tiles of one portal are
+        // linked in a ring, so all of them are reached from any one.
+        private int[] partners;
+        private final Map<String, int[]> portalEnds = new HashMap<>();
+        // Cells of the golds and pills, in row order
+        private int[] items = new int[16];
+        private int nbItems = 0;
+        private int start = -1;
+        private int nbStarts = 0;
+
+        @Override
+        public void start(GameMap gameMap) {
+            grid = gameMap.getMap();
+            width = gameMap.getNbHorzCells();
+            height = width > 0 ? grid.length() / width : 0;
+            partners = new int[grid.length()];
+            Arrays.fill(partners, -1);
+        }
 
-        // If the check1 is false, all golds and pills are not accessible
-        if (!check1) {
-            for (int i = 0; i < grid.length(); i++) {
-                if (grid.charAt(i) == 'g') {
-                    goldPositions.add("(" + ((i % 20) + 1) + "," + ((i / 20) + 1) + ")");
-                } else if (grid.charAt(i) == '.') {
-                    pillPositions.add("(" + ((i % 20) + 1) + "," + ((i / 20) + 1) + ")");
+        @Override
+        public void visitCell(int index, int col, int row, char tile) {
+            if (tile == 'g' || tile == '.') {
+                if (nbItems == items.length) {
+                    items = Arrays.copyOf(items, nbItems * 2);
                 }
+                items[nbItems++] = index;
             }
-        } else {
-            int row = gameMap.getActors().get("pacman").get(0)[1];
-            int col = gameMap.getActors().get("pacman").get(0)[0];
-            Map<String, List<int[]>> portals = gameMap.getPortals();
+        }
 
-            char[][] grid2D = new char[11][20];
-            for (int i = 0; i < 11; i++) {
-                for (int j = 0; j < 20; j++) {
-                    grid2D[i][j] = grid.charAt(i * 20 + j);
-                }
+        @Override
+        public void visitActor(String name, int col, int row) {
+            if (name.equals("pacman")) {
+                nbStarts++;
+                start = isInside(col, row) ? row * width + col : -1;
+            }
+        }
+
+        @Override
+        public void visitPortal(String name, int col, int row) {
+            if (!isInside(col, row)) {
+                return;
+            }
+            int cell = row * width + col;
+            // First and last tile of the portal so far
+            int[] ends = portalEnds.get(name);
+            if (ends == null) {
+                portalEnds.put(name, new int[]{cell, cell});
+            } else {
+                partners[ends[1]] = cell;
+                partners[cell] = ends[0];
+                ends[1] = cell;
             }
+        }
 
-            Queue<Integer[]> queue = new LinkedList<>();
-            boolean[][] visited = new boolean[11][20];
-            visited[row][col] = true;
-            int count = 0;
+        @Override
+        public boolean report(String level, EventSink log) {
+            boolean[] visited = new boolean[grid.length()];
+            if (nbStarts == 1 && start >= 0 && visitFrom(start, visited) == nbItems) {
+                return true;
+            }
 
-            for (int i = 0; i < grid.length(); i++) {
-                if (grid.charAt(i) == 'g' || grid.charAt(i) == '.') {
-                    count++;
+            // The items left behind, in row order
+            StringBuilder goldPositions = new StringBuilder();
+            StringBuilder pillPositions = new StringBuilder();
+            for (int i = 0; i < nbItems; i++) {
+                int cell = items[i];
+                if (!visited[cell]) {
+                    appendPosition(grid.charAt(cell) == 'g' ? goldPositions : pillPositions, cell);
                 }
             }
 
-            queue.add(new Integer[]{row, col});
+            if (goldPositions.length() > 0) {
+                log.writeLine("Level " + level + " – Gold not accessible: " + goldPositions);
+            }
 
-            // BFS
-            while (!queue.isEmpty()) {
-                Integer[] curr = queue.poll();
-                int r = curr[0];
-                int c = curr[1];
+            if (pillPositions.length() > 0) {
+                log.writeLine("Level " + level + " – Pill not accessible: " + pillPositions);
+            }
 
-                if (grid2D[r][c] == 'g' || grid2D[r][c] == '.') {
-                    count--;
-                } else if (grid2D[r][c] == 'g') {
-                    goldPositions.add("(" + (c + 1) + "," + (r + 1) + ")");
-                } else if (grid2D[r][c] == '.') {
-                    pillPositions.add("(" + (c + 1) + "," + (r + 1) + ")");
-                }
+            return false;
+        }
 
-                if (count == 0) {
-                    return true;
-                }
+        private boolean isInside(int col, int row) {
+            return col >= 0 && col < width && row >= 0 && row < height;
+        }
 
-                // Check if the current tile is a portal
-                for (List<int[]> portalLocs : portals.values()) {
-                    for (int[] loc : portalLocs) {
-                        if (r == loc[0] && c == loc[1]) {
-                            for (int[] otherLoc : portalLocs) {
-                                if (otherLoc != loc && !visited[otherLoc[0]][otherLoc[1]]) {
-                                    queue.add(new Integer[]{otherLoc[0], otherLoc[1]});
-                                    visited[otherLoc[0]][otherLoc[1]] = true;
-                                }
-                            }
-                        }
-                    }
+        /**
+         * Breadth-first search from a cell, through paths and portals. The queue is a flat
+         * array of cell indexes, as every cell is queued at most once.
+         *
+         * @param first   index of the first cell
+         * @param visited receives the cells reached
+         * @return number of golds and pills reached, the search stops once all are
+         */
+        private int visitFrom(int first, boolean[] visited) {
+            int[] queue = new int[grid.length()];
+            int head = 0;
+            int tail = 0;
+            int found = 0;
+            queue[tail++] = first;
+            visited[first] = true;
+
+            while (head < tail) {
+                int cell = queue[head++];
+                char c = grid.charAt(cell);
+                if ((c == 'g' || c == '.') && ++found == nbItems) {
+                    break;
                 }
 
-                int[][] dirs = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
-                for (int[] dir : dirs) {
-                    int newRow = r + dir[0];
-                    int newCol = c + dir[1];
+                int partner = partners[cell];
+                if (partner >= 0 && !visited[partner]) {
+                    visited[partner] = true;
+                    queue[tail++] = partner;
+                }
 
-                    if (newRow >= 0 && newRow < 11 && newCol >= 0 && newCol < 20
-                            && grid2D[newRow][newCol] != 'x' && !visited[newRow][newCol]) {
-                        visited[newRow][newCol] = true;
-                        queue.add(new Integer[]{newRow, newCol});
-                    }
+                int row = cell / width;
+                int col = cell - row * width;
+                if (row > 0) {
+                    tail = enqueue(cell - width, visited, queue, tail);
+                }
+                if (row < height - 1) {
+                    tail = enqueue(cell + width, visited, queue, tail);
+                }
+                if (col > 0) {
+                    tail = enqueue(cell - 1, visited, queue, tail);
+                }
+                if (col < width - 1) {
+                    tail = enqueue(cell + 1, visited, queue, tail);
                 }
             }
+            return found;
         }
 
-        if (!goldPositions.isEmpty()) {
-            if (logWriter != null) {
-                logWriter.println("Level " + level + " – Gold not accessible: " +
-                        String.join("; ", goldPositions));
+        private int enqueue(int cell, boolean[] visited, int[] queue, int tail) {
+            if (!visited[cell] && grid.charAt(cell) != 'x') {
+                visited[cell] = true;
+                queue[tail++] = cell;
             }
+            return tail;
         }
 
-        if (!pillPositions.isEmpty()) {
-            if (logWriter != null) {
-                logWriter.println("Level " + level + " – Pill not accessible: " +
-                        String.join("; ", pillPositions));
+        private void appendPosition(StringBuilder positions, int cell) {
+            if (positions.length() > 0) {
+                positions.append("; ");
             }
+            positions.append('(').append(cell % width + 1).append(',').append(cell / width + 1).append(')');
         }
-
-        return false;
     }
 }
-
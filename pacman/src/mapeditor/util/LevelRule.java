@@ -0,0 +1,61 @@
+package src.mapeditor.util;
+
+import src.utility.EventSink;
+
+/**
+ * A rule of the level check. LevelChecker walks a map once and gives every cell,
+ * actor and portal to all its rules, then asks each rule for its verdict, so adding a
+ * rule adds no pass over the map.
+ * <p>
+ * A rule object checks one level and keeps what it has seen in its fields. Levels
+ * checked at the same time each get their own rule objects.
+ */
+public interface LevelRule {
+    /**
+     * Called before the walk
+     *
+     * @param gameMap the map being checked
+     */
+    default void start(GameMap gameMap) {
+    }
+
+    /**
+     * Called for every cell, in row order
+     *
+     * @param index index of the cell in the map string
+     * @param col   column of the cell
+     * @param row   row of the cell
+     * @param tile  character of the cell in the map string
+     */
+    default void visitCell(int index, int col, int row, char tile) {
+    }
+
+    /**
+     * Called for every actor position
+     *
+     * @param name name of the actor, as in GameMap
+     * @param col  column of the actor
+     * @param row  row of the actor
+     */
+    default void visitActor(String name, int col, int row) {
+    }
+
+    /**
+     * Called for every portal tile
+     *
+     * @param name name of the portal, as in GameMap
+     * @param col  column of the tile
+     * @param row  row of the tile
+     */
+    default void visitPortal(String name, int col, int row) {
+    }
+
+    /**
+     * Called after the walk, in the order of the rules
+     *
+     * @param level the name of the level in its problems
+     * @param log   where the problems found are written
+     * @return true if the level passes the rule
+     */
+    boolean report(String level, EventSink log);
+}
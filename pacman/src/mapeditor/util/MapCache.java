@@ -0,0 +1,292 @@
+package src.mapeditor.util;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of converted and checked levels. An entry holds the GameMap of a
+ * level in the compiled format with the result and the problems of its level check,
+ * and is found by a hash of the file content, so an unchanged level is neither
+ * parsed nor checked again.
+ * <p>
+ * The hash of a file is only computed again when its modification time or size has
+ * changed since it was last seen. The cache is safe to use from several threads.
+ */
+public class MapCache {
+    public static final String DEFAULT_FOLDER = ".mapcache";
+
+    // Bump when a converter or the level check changes what it gives for the same file
+    private static final int CACHE_VERSION = 2;
+    private static final String INDEX_FILE = "index";
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final int ENTRY_MAGIC = 0x504d4345;
+
+    private final File folder;
+    // Last known modification time, size and content hash of every file, by absolute path
+    private final Map<String, FileStamp> index = new HashMap<>();
+    private boolean isIndexLoaded = false;
+    private boolean isIndexDirty = false;
+
+    private static class FileStamp {
+        private final long lastModified;
+        private final long size;
+        private final String hash;
+
+        FileStamp(long lastModified, long size, String hash) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * A level as stored in the cache
+     */
+    public static class Entry {
+        private final GameMap map;
+        private final boolean isValid;
+        private final List<String> diagnostics;
+
+        public Entry(GameMap map, boolean isValid, List<String> diagnostics) {
+            this.map = map;
+            this.isValid = isValid;
+            this.diagnostics = diagnostics;
+        }
+
+        public GameMap getMap() {
+            return map;
+        }
+
+        public boolean isValid() {
+            return isValid;
+        }
+
+        public List<String> getDiagnostics() {
+            return diagnostics;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param folder folder of the cache, created when the first entry is stored
+     */
+    public MapCache(File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Find the cached level of a file
+     *
+     * @param file  the level file
+     * @param level the name the level is checked under, it appears in the problems
+     * @return the entry, or null if the file is new or has changed
+     */
+    public Entry get(File file, String level) {
+        try {
+            String key = entryKey(file, level);
+            File entryFile = new File(folder, key + ENTRY_SUFFIX);
+            if (!entryFile.isFile()) {
+                return null;
+            }
+            return readEntry(Files.readAllBytes(entryFile.toPath()), entryFile.toString());
+        } catch (IOException e) {
+            // A missing or damaged entry is only a cache miss
+            return null;
+        }
+    }
+
+    /**
+     * Store the converted and checked level of a file
+     *
+     * @param file  the level file
+     * @param level the name the level is checked under
+     * @param entry the level
+     */
+    public void put(File file, String level, Entry entry) {
+        byte[] bytes;
+        try {
+            bytes = writeEntry(entry);
+        } catch (IllegalArgumentException e) {
+            // A map the compiled format cannot hold, such as one with missing cells
+            return;
+        }
+        try {
+            String key = entryKey(file, level);
+            Files.createDirectories(folder.toPath());
+            writeAtomically(new File(folder, key + ENTRY_SUFFIX).toPath(), bytes);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Save the file stamps learnt since the last save
+     */
+    public synchronized void saveIndex() {
+        if (!isIndexDirty) {
+            return;
+        }
+        try {
+            Files.createDirectories(folder.toPath());
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, FileStamp> stamp : index.entrySet()) {
+                FileStamp value = stamp.getValue();
+                sb.append(value.lastModified).append('\t').append(value.size).append('\t')
+                        .append(value.hash).append('\t').append(stamp.getKey()).append('\n');
+            }
+            writeAtomically(new File(folder, INDEX_FILE).toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+            isIndexDirty = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Name of the entry of a file: a hash of the cache version, the level name and the content hash
+     */
+    private String entryKey(File file, String level) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(CACHE_VERSION).array());
+        digest.update(level.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(contentHash(file).getBytes(StandardCharsets.US_ASCII));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash of the content of a file, reused while its modification time and size stay the same
+     */
+    private String contentHash(File file) throws IOException {
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long size = file.length();
+        synchronized (this) {
+            loadIndex();
+            FileStamp stamp = index.get(path);
+            if (stamp != null && stamp.lastModified == lastModified && stamp.size == size) {
+                return stamp.hash;
+            }
+        }
+
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[16 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        synchronized (this) {
+            index.put(path, new FileStamp(lastModified, size, hash));
+            isIndexDirty = true;
+        }
+        return hash;
+    }
+
+    private void loadIndex() {
+        if (isIndexLoaded) {
+            return;
+        }
+        isIndexLoaded = true;
+        File indexFile = new File(folder, INDEX_FILE);
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length == 4) {
+                    index.put(fields[3], new FileStamp(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                            fields[2]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Start again from an empty index, the hashes are computed again
+            index.clear();
+        }
+    }
+
+    private static byte[] writeEntry(Entry entry) {
+        byte[] compiledMap = CompiledMap.fromGameMap(entry.getMap()).toBytes();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(compiledMap.length + 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(ENTRY_MAGIC);
+            out.writeBoolean(entry.isValid());
+            out.writeInt(entry.getDiagnostics().size());
+            for (String line : entry.getDiagnostics()) {
+                byte[] utf8 = line.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            out.write(compiledMap);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry readEntry(byte[] bytes, String source) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != ENTRY_MAGIC) {
+                throw new IOException(source + " is not a cache entry");
+            }
+            boolean isValid = buffer.get() != 0;
+            int nbLines = buffer.getInt();
+            List<String> diagnostics = new ArrayList<>(Math.max(0, Math.min(nbLines, 64)));
+            for (int i = 0; i < nbLines; i++) {
+                byte[] utf8 = new byte[buffer.getInt()];
+                buffer.get(utf8);
+                diagnostics.add(new String(utf8, StandardCharsets.UTF_8));
+            }
+            GameMap map = CompiledMap.read(buffer, source).toGameMap();
+            return new Entry(map, isValid, diagnostics);
+        } catch (RuntimeException e) {
+            // Underflow or a negative length in a damaged entry
+            throw new IOException(source + " is damaged", e);
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
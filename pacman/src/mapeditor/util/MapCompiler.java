@@ -0,0 +1,74 @@
+package src.mapeditor.util;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compile the XML maps of a folder into the binary format read by BinaryMapConverter.
+ * Every map keeps its file name with the .pmap suffix, so the levels keep their order.
+ * <p>
+ * Usage: java src.mapeditor.util.MapCompiler &lt;XML map folder&gt; &lt;output folder&gt;
+ */
+public class MapCompiler {
+    private final MapConverter xmlConverter = new XMLMapConverter();
+
+    /**
+     * Compile every XML map of a folder
+     *
+     * @param xmlFolder    folder of the XML maps
+     * @param outputFolder folder for the compiled maps, created if needed
+     * @return number of maps compiled
+     * @throws IOException if a map cannot be read or written
+     */
+    public int compileFolder(File xmlFolder, File outputFolder) throws IOException {
+        File[] files = xmlFolder.listFiles((dir, name) -> name.endsWith(".xml"));
+        if (files == null) {
+            throw new IOException(xmlFolder + " is not a folder");
+        }
+        if (!outputFolder.isDirectory() && !outputFolder.mkdirs()) {
+            throw new IOException("Cannot create " + outputFolder);
+        }
+        for (File file : files) {
+            compileFile(file, new File(outputFolder, toCompiledName(file.getName())));
+        }
+        return files.length;
+    }
+
+    /**
+     * Compile one XML map
+     *
+     * @param xmlFile      the XML map
+     * @param compiledFile the file to write
+     * @throws IOException if the map cannot be read or written
+     */
+    public void compileFile(File xmlFile, File compiledFile) throws IOException {
+        GameMap map;
+        try {
+            map = xmlConverter.convertMapFile(xmlFile.getPath());
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot read " + xmlFile, e);
+        }
+        try {
+            CompiledMap.fromGameMap(map).write(compiledFile);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Cannot compile " + xmlFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    static String toCompiledName(String xmlName) {
+        return xmlName.substring(0, xmlName.length() - ".xml".length()) + BinaryMapConverter.FILE_SUFFIX;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: MapCompiler <XML map folder> <output folder>");
+            return;
+        }
+        try {
+            int count = new MapCompiler().compileFolder(new File(args[0]), new File(args[1]));
+            System.out.println("Compiled " + count + " maps into " + args[1]);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -6,4 +6,13 @@ package src.mapeditor.util;
  */
 public interface MapConverter {
     GameMap convertMapFile(String filename);
+
+    /**
+     * Suffix of the files this converter reads, used to find the maps of a folder
+     *
+     * @return the file suffix, with its dot
+     */
+    default String getFileSuffix() {
+        return ".xml";
+    }
 }
@@ -1,24 +1,98 @@
 package src.mapeditor.util;
 
+import src.utility.EventSink;
+import src.utility.FileSink;
+import src.utility.GameCallback;
+import src.utility.MemorySink;
+
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * The context class ]for the strategy pattern
  * Load map file or folder
  */
 public class MapLoader {
+    // A level check writes one line per failed check
+    private static final int MAX_DIAGNOSTICS_PER_LEVEL = 64;
+
     private final MapConverter mapConverter;
+    private final Supplier<EventSink> logFactory;
+    private final int threads;
+    private final MapCache cache;
     private boolean passedLevelCheck;
 
     /**
-     * Constructor
+     * Result of converting and checking one level file
+     */
+    private static class LevelResult {
+        private final File file;
+        private final GameMap map;
+        private final boolean isValid;
+        private final List<String> diagnostics;
+
+        LevelResult(File file, GameMap map, boolean isValid, List<String> diagnostics) {
+            this.file = file;
+            this.map = map;
+            this.isValid = isValid;
+            this.diagnostics = diagnostics;
+        }
+    }
+
+    /**
+     * Constructor, the checks write their problems to Log.txt
      *
      * @param mapConverter map converter
      */
     public MapLoader(MapConverter mapConverter) {
+        this(mapConverter, () -> new FileSink(GameCallback.LOG_FILE_PATH));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param mapConverter map converter
+     * @param logFactory   opens the log of one load, shared by the game check and every level check
+     */
+    public MapLoader(MapConverter mapConverter, Supplier<EventSink> logFactory) {
+        this(mapConverter, logFactory, 1);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param mapConverter map converter
+     * @param logFactory   opens the log of one load, shared by the game check and every level check
+     * @param threads      number of threads converting and checking the levels of a folder. With more
+     *                     than one, every level is checked and all problems are logged in level order;
+     *                     with one, the load stops at the first invalid level.
+     */
+    public MapLoader(MapConverter mapConverter, Supplier<EventSink> logFactory, int threads) {
+        this(mapConverter, logFactory, threads, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param mapConverter map converter
+     * @param logFactory   opens the log of one load, shared by the game check and every level check
+     * @param threads      number of threads converting and checking the levels of a folder
+     * @param cache        cache of converted and checked levels, or null to always convert and check
+     */
+    public MapLoader(MapConverter mapConverter, Supplier<EventSink> logFactory, int threads, MapCache cache) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
         this.mapConverter = mapConverter;
+        this.logFactory = logFactory;
+        this.threads = threads;
+        this.cache = cache;
         this.passedLevelCheck = true;
     }
 
@@ -31,15 +105,39 @@ public class MapLoader {
     public GameMap loadMap(String arg) {
         File file = new File(arg);
         if (file.isFile()) {
-            GameMap map = mapConverter.convertMapFile(file.getPath());
             // check level
-            boolean isValidMap = LevelChecker.levelCheck(arg, map);
-            if (!isValidMap) return null;
-            return map;
+            LevelResult result = checkLevel(file, arg);
+            EventSink log = logFactory.get();
+            for (String line : result.diagnostics) {
+                log.writeLine(line);
+            }
+            log.close();
+            saveCacheIndex();
+            if (!result.isValid) return null;
+            return result.map;
         }
         return null;
     }
 
+    /**
+     * Check a map that is already in memory, such as the one being edited
+     *
+     * @param map   the map
+     * @param level the name of the level in its problems
+     * @return the map, or null if it fails its check
+     */
+    public GameMap checkMap(GameMap map, String level) {
+        MemorySink diagnostics = new MemorySink(MAX_DIAGNOSTICS_PER_LEVEL);
+        boolean isValidMap = LevelChecker.levelCheck(level, map, diagnostics);
+        EventSink log = logFactory.get();
+        for (String line : diagnostics.getLines()) {
+            log.writeLine(line);
+        }
+        log.close();
+        this.passedLevelCheck = isValidMap;
+        return isValidMap ? map : null;
+    }
+
     /**
      * Load map folder
      *
@@ -47,31 +145,144 @@ public class MapLoader {
      * @return List<GameMap>
      */
     public List<GameMap> loadMaps(String arg) {
-        List<GameMap> maps = new ArrayList<>();
-
-        // check folder first
-        List<File> validMaps = GameChecker.gameCheck(arg);
-        if (validMaps == null) {
-            return null;
-        }
-        for (File file : validMaps) {
-            if (file.isFile()) {
-                GameMap map = mapConverter.convertMapFile(file.getPath());
-                // check level
-                boolean isValidMap = LevelChecker.levelCheck(file.getPath(), map);
-                if (!isValidMap) {
-                    this.passedLevelCheck = false;
-                    GameMap invalidMap = new GameMap(file.getPath());
-                    return List.of(invalidMap);
+        // One log for the whole folder, so the checks do not overwrite each other
+        EventSink log = logFactory.get();
+        try {
+            // check folder first
+            List<File> validMaps = GameChecker.gameCheck(arg, log, mapConverter.getFileSuffix());
+            if (validMaps == null) {
+                return null;
+            }
+            List<File> files = new ArrayList<>();
+            for (File file : validMaps) {
+                if (file.isFile()) {
+                    files.add(file);
                 }
-                maps.add(map);
             }
+            if (threads > 1 && files.size() > 1) {
+                return checkLevelsInParallel(files, log);
+            }
+            return checkLevels(files, log);
+        } finally {
+            log.close();
+            saveCacheIndex();
+        }
+    }
+
+    /**
+     * Convert and check the levels one after another, stopping at the first invalid one
+     *
+     * @param files the level files in level order
+     * @param log   the log of the load
+     * @return the maps, or only the invalid map if a level fails its check
+     */
+    private List<GameMap> checkLevels(List<File> files, EventSink log) {
+        List<GameMap> maps = new ArrayList<>();
+        for (File file : files) {
+            // check level
+            LevelResult result = checkLevel(file, file.getPath());
+            for (String line : result.diagnostics) {
+                log.writeLine(line);
+            }
+            if (!result.isValid) {
+                this.passedLevelCheck = false;
+                GameMap invalidMap = new GameMap(file.getPath());
+                return List.of(invalidMap);
+            }
+            maps.add(result.map);
         }
 
         this.passedLevelCheck = true;
         return maps;
     }
 
+    /**
+     * Convert and check all levels at the same time on a bounded pool. The problems of
+     * every level are logged in level order, and the result is the same as checkLevels:
+     * the first invalid level in level order is the one given back.
+     *
+     * @param files the level files in level order
+     * @param log   the log of the load
+     * @return the maps, or only the first invalid map if a level fails its check
+     */
+    private List<GameMap> checkLevelsInParallel(List<File> files, EventSink log) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            List<Future<LevelResult>> futures = new ArrayList<>(files.size());
+            for (File file : files) {
+                futures.add(executor.submit(() -> checkLevel(file, file.getPath())));
+            }
+
+            List<GameMap> maps = new ArrayList<>(files.size());
+            File firstInvalid = null;
+            for (Future<LevelResult> future : futures) {
+                LevelResult result = getResult(future);
+                for (String line : result.diagnostics) {
+                    log.writeLine(line);
+                }
+                if (!result.isValid && firstInvalid == null) {
+                    firstInvalid = result.file;
+                }
+                maps.add(result.map);
+            }
+
+            if (firstInvalid != null) {
+                this.passedLevelCheck = false;
+                return List.of(new GameMap(firstInvalid.getPath()));
+            }
+            this.passedLevelCheck = true;
+            return maps;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Convert and check one level, keeping its problems aside until they can be logged in order.
+     * An unchanged level is taken from the cache instead.
+     *
+     * @param file  the level file
+     * @param level the name of the level in its problems
+     * @return the result of the level
+     */
+    private LevelResult checkLevel(File file, String level) {
+        if (cache != null) {
+            MapCache.Entry entry = cache.get(file, level);
+            if (entry != null) {
+                return new LevelResult(file, entry.getMap(), entry.isValid(), entry.getDiagnostics());
+            }
+        }
+        GameMap map = mapConverter.convertMapFile(file.getPath());
+        MemorySink diagnostics = new MemorySink(MAX_DIAGNOSTICS_PER_LEVEL);
+        boolean isValidMap = LevelChecker.levelCheck(level, map, diagnostics);
+        List<String> lines = diagnostics.getLines();
+        if (cache != null) {
+            cache.put(file, level, new MapCache.Entry(map, isValidMap, lines));
+        }
+        return new LevelResult(file, map, isValidMap, lines);
+    }
+
+    private void saveCacheIndex() {
+        if (cache != null) {
+            cache.saveIndex();
+        }
+    }
+
+    private LevelResult getResult(Future<LevelResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            // Same exception as a serial load would have thrown
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     public boolean isPassedLevelCheck() {
         return this.passedLevelCheck;
     }
@@ -1,15 +1,13 @@
 package src.mapeditor.util;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.File;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +16,11 @@ import java.util.Map;
  * Read and convert XML map files
  */
 public class XMLMapConverter implements MapConverter {
+    // Creating the factory looks up the StAX implementation, so it is done once.
+    // Creating readers from a configured factory is safe from several threads.
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final int BUFFER_SIZE = 16 * 1024;
+
     /**
      * Convert XML file into GameMap
      *
@@ -30,105 +33,179 @@ public class XMLMapConverter implements MapConverter {
         Map<String, List<int[]>> actors = new HashMap<>();
         Map<String, List<int[]>> portals = new HashMap<>();
 
-        try {
-            Document document = parseDocument(filename);
-
-            // Process the document to create the map representation.
-            StringBuilder sb = processDocument(document, actors, portals);
-
-            return new GameMap(actors, portals, sb.toString());
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filename), BUFFER_SIZE)) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                // Process the document to create the map representation.
+                int[] size = new int[2];
+                StringBuilder sb = processDocument(reader, actors, portals, size);
 
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+                if (size[0] > 0 && size[1] > 0) {
+                    return new GameMap(actors, portals, sb.toString(), size[0], size[1]);
+                }
+                return new GameMap(actors, portals, sb.toString());
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    /**
-     * Parse the XML document
-     *
-     * @param filename the name of the file
-     * @return Document
-     * @throws ParserConfigurationException the ParserConfigurationException
-     * @throws SAXException                 the SAXException
-     * @throws IOException                  the IOException
-     */
-    private Document parseDocument(String filename) throws ParserConfigurationException, SAXException, IOException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        return builder.parse(new File(filename));
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Map files never refer to other files
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
     }
 
     /**
-     * Process the document to create the map representation
+     * Read the document in one pass to create the map representation. Like the
+     * text content of a DOM element, the value of a cell is all the text inside it.
      *
-     * @param document the document
-     * @param actors   the actors
-     * @param portals  the portals
+     * @param reader  the reader at the start of the document
+     * @param actors  the actors
+     * @param portals the portals
+     * @param size    receives the width and height given in the document, 0 if missing
      * @return StringBuilder
+     * @throws XMLStreamException if the document is not well-formed
      */
-    private StringBuilder processDocument(Document document, Map<String, List<int[]>> actors, Map<String,
-            List<int[]>> portals) {
-        Element root = document.getDocumentElement();
-        NodeList rows = root.getElementsByTagName("row");
+    private StringBuilder processDocument(XMLStreamReader reader, Map<String, List<int[]>> actors, Map<String,
+            List<int[]>> portals, int[] size) throws XMLStreamException {
         StringBuilder sb = new StringBuilder();
+        StringBuilder cellValue = new StringBuilder();
+        StringBuilder sizeValue = new StringBuilder();
+        int width = 0;
+        int height = 0;
+        // Row and column of the current cell, and how deep inside a row or cell the reader is
+        int i = -1;
+        int j = 0;
+        int rowDepth = 0;
+        int cellDepth = 0;
+        boolean isInSize = false;
 
-        for (int i = 0; i < rows.getLength(); i++) {
-            Element row = (Element) rows.item(i);
-
-            // Get all cell nodes in the current row.
-            NodeList cells = row.getElementsByTagName("cell");
-
-            for (int j = 0; j < cells.getLength(); j++) {
-                Element cell = (Element) cells.item(j);
-                String cellValue = cell.getTextContent();
-
-                // Determine what character to append to the map representation based on the cell value.
-                switch (cellValue) {
-                    case "WallTile" -> sb.append("x");
-                    case "PillTile" -> {
-                        sb.append(".");
-                        addActor(actors, "pill", new int[]{j, i});
-                    }
-                    case "PacTile" -> {
-                        addActor(actors, "pacman", new int[]{j, i});
-                        sb.append(" ");
-                    }
-                    case "TX5Tile" -> {
-                        addActor(actors, "TX5", new int[]{j, i});
-                        sb.append(" ");
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    String name = reader.getLocalName();
+                    if (cellDepth > 0) {
+                        cellDepth++;
+                    } else if (name.equals("row")) {
+                        if (rowDepth == 0) {
+                            i++;
+                            j = 0;
+                        }
+                        rowDepth++;
+                    } else if (name.equals("cell") && rowDepth > 0) {
+                        cellDepth = 1;
+                        cellValue.setLength(0);
+                    } else if (name.equals("width") || name.equals("height")) {
+                        isInSize = true;
+                        sizeValue.setLength(0);
                     }
-                    case "TrollTile" -> {
-                        addActor(actors, "Troll", new int[]{j, i});
-                        sb.append(" ");
-                    }
-                    case "GoldTile" -> {
-                        sb.append("g");
-                        addActor(actors, "Gold", new int[]{j, i});
-                    }
-                    case "IceTile" -> sb.append("i");
-                    case "PortalWhiteTile" -> {
-                        sb.append("1");
-                        addActor(portals, "PortalWhiteTile", new int[]{i, j});
-                    }
-                    case "PortalYellowTile" -> {
-                        sb.append("2");
-                        addActor(portals, "PortalYellowTile", new int[]{i, j});
-                    }
-                    case "PortalDarkGoldTile" -> {
-                        sb.append("3");
-                        addActor(portals, "PortalDarkGoldTile", new int[]{i, j});
+                }
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                    if (cellDepth > 0) {
+                        cellValue.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    } else if (isInSize) {
+                        sizeValue.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
                     }
-                    case "PortalDarkGrayTile" -> {
-                        sb.append("4");
-                        addActor(portals, "PortalDarkGrayTile", new int[]{i, j});
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    if (cellDepth > 1) {
+                        cellDepth--;
+                    } else if (cellDepth == 1) {
+                        cellDepth = 0;
+                        appendCell(cellValue.toString(), i, j, sb, actors, portals);
+                        j++;
+                    } else if (rowDepth > 0 && reader.getLocalName().equals("row")) {
+                        rowDepth--;
+                    } else if (isInSize) {
+                        isInSize = false;
+                        // Size the map once its dimensions are known, instead of growing it cell by cell
+                        if (reader.getLocalName().equals("width")) {
+                            width = parseSize(sizeValue);
+                        } else {
+                            height = parseSize(sizeValue);
+                        }
+                        if (width > 0 && height > 0 && sb.length() == 0) {
+                            sb.ensureCapacity(width * height);
+                        }
                     }
-                    default -> sb.append(" ");
+                }
+                default -> {
                 }
             }
         }
+        size[0] = width;
+        size[1] = height;
         return sb;
     }
 
+    private int parseSize(CharSequence value) {
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Append the character of one cell to the map representation
+     *
+     * @param cellValue the tile name of the cell
+     * @param i         the row of the cell
+     * @param j         the column of the cell
+     * @param sb        the map representation
+     * @param actors    the actors
+     * @param portals   the portals
+     */
+    private void appendCell(String cellValue, int i, int j, StringBuilder sb, Map<String, List<int[]>> actors,
+                            Map<String, List<int[]>> portals) {
+        // Determine what character to append to the map representation based on the cell value.
+        switch (cellValue) {
+            case "WallTile" -> sb.append("x");
+            case "PillTile" -> {
+                sb.append(".");
+                addActor(actors, "pill", new int[]{j, i});
+            }
+            case "PacTile" -> {
+                addActor(actors, "pacman", new int[]{j, i});
+                sb.append(" ");
+            }
+            case "TX5Tile" -> {
+                addActor(actors, "TX5", new int[]{j, i});
+                sb.append(" ");
+            }
+            case "TrollTile" -> {
+                addActor(actors, "Troll", new int[]{j, i});
+                sb.append(" ");
+            }
+            case "GoldTile" -> {
+                sb.append("g");
+                addActor(actors, "Gold", new int[]{j, i});
+            }
+            case "IceTile" -> sb.append("i");
+            case "PortalWhiteTile" -> {
+                sb.append("1");
+                addActor(portals, "PortalWhiteTile", new int[]{i, j});
+            }
+            case "PortalYellowTile" -> {
+                sb.append("2");
+                addActor(portals, "PortalYellowTile", new int[]{i, j});
+            }
+            case "PortalDarkGoldTile" -> {
+                sb.append("3");
+                addActor(portals, "PortalDarkGoldTile", new int[]{i, j});
+            }
+            case "PortalDarkGrayTile" -> {
+                sb.append("4");
+                addActor(portals, "PortalDarkGrayTile", new int[]{i, j});
+            }
+            default -> sb.append(" ");
+        }
+    }
+
     /**
      * Add an actor to the map
      *
@@ -142,4 +219,4 @@ public class XMLMapConverter implements MapConverter {
         }
         actors.get(actorName).add(position);
     }
-}
\ No newline at end of file
+}
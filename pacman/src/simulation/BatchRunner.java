@@ -0,0 +1,146 @@
+package src.simulation;
+
+import src.autoMove.StepFinder;
+import src.mapeditor.util.GameMap;
+import src.utility.EventSink;
+import src.utility.NullSink;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plays every (map, seed) pair of a seed sweep as an independent headless
+ * auto-play game on a fork-join pool.
+ */
+public class BatchRunner {
+    // Games per leaf task, small enough to balance uneven game lengths
+    private static final int GAMES_PER_TASK = 8;
+
+    private final List<GameMap> maps;
+    private final int fromSeed;
+    private final int toSeed;
+    private final int threads;
+    private final int maxTicksPerLevel;
+    private final String movingMethod;
+    private final LogFactory logFactory;
+
+    /**
+     * Opens the log of one game of the sweep
+     */
+    public interface LogFactory {
+        EventSink open(int mapIndex, int seed);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maps     the maps, each played as a one level game
+     * @param fromSeed first seed of the sweep
+     * @param toSeed   last seed of the sweep (inclusive)
+     * @param threads  number of worker threads
+     */
+    public BatchRunner(List<GameMap> maps, int fromSeed, int toSeed, int threads) {
+        this(maps, fromSeed, toSeed, threads, HeadlessGame.DEFAULT_MAX_TICKS, StepFinder.DIRECT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maps             the maps, each played as a one level game
+     * @param fromSeed         first seed of the sweep
+     * @param toSeed           last seed of the sweep (inclusive)
+     * @param threads          number of worker threads
+     * @param maxTicksPerLevel ticks after which a game is given up
+     * @param movingMethod     the auto move of PacMan, see StepFinder
+     */
+    public BatchRunner(List<GameMap> maps, int fromSeed, int toSeed, int threads, int maxTicksPerLevel,
+                       String movingMethod) {
+        this(maps, fromSeed, toSeed, threads, maxTicksPerLevel, movingMethod, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maps             the maps, each played as a one level game
+     * @param fromSeed         first seed of the sweep
+     * @param toSeed           last seed of the sweep (inclusive)
+     * @param threads          number of worker threads
+     * @param maxTicksPerLevel ticks after which a game is given up
+     * @param movingMethod     the auto move of PacMan, see StepFinder
+     * @param logFactory       opens one log per game, or null for no logs
+     */
+    public BatchRunner(List<GameMap> maps, int fromSeed, int toSeed, int threads, int maxTicksPerLevel,
+                       String movingMethod, LogFactory logFactory) {
+        if (toSeed < fromSeed) {
+            throw new IllegalArgumentException("The last seed is smaller than the first seed");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.maps = maps;
+        this.fromSeed = fromSeed;
+        this.toSeed = toSeed;
+        this.threads = threads;
+        this.maxTicksPerLevel = maxTicksPerLevel;
+        this.movingMethod = movingMethod;
+        this.logFactory = logFactory;
+    }
+
+    /**
+     * Run the whole sweep
+     *
+     * @return the aggregated results
+     */
+    public BatchSummary run() {
+        int nbSeeds = toSeed - fromSeed + 1;
+        SimulationResult[] results = new SimulationResult[maps.size() * nbSeeds];
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new GameTask(results, nbSeeds, 0, results.length));
+        } finally {
+            pool.shutdown();
+        }
+        return new BatchSummary(results);
+    }
+
+    /**
+     * Plays the games of a range of result slots, splitting it while it is large
+     */
+    private class GameTask extends RecursiveAction {
+        private static final long serialVersionUID = 5193526720351432784L;
+
+        private final SimulationResult[] results;
+        private final int nbSeeds;
+        private final int from;
+        private final int to;
+
+        GameTask(SimulationResult[] results, int nbSeeds, int from, int to) {
+            this.results = results;
+            this.nbSeeds = nbSeeds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    GameMap map = maps.get(i / nbSeeds);
+                    int seed = fromSeed + i % nbSeeds;
+                    EventSink log = logFactory == null ? new NullSink() : logFactory.open(i / nbSeeds, seed);
+                    try {
+                        results[i] = new HeadlessGame(List.of(map), seed, maxTicksPerLevel, movingMethod, log).run();
+                    } finally {
+                        log.close();
+                    }
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GameTask(results, nbSeeds, from, middle),
+                        new GameTask(results, nbSeeds, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package src.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Aggregate statistics of a batch of headless games
+ */
+public class BatchSummary {
+    private final int games;
+    private final int wins;
+    private final int losses;
+    private final int timeouts;
+    private final double meanTicksToFinish;
+    private final int[] sortedScores;
+
+    /**
+     * Constructor
+     *
+     * @param results the result of every game in the batch
+     */
+    public BatchSummary(SimulationResult[] results) {
+        this.games = results.length;
+        this.sortedScores = new int[results.length];
+        int nbWins = 0;
+        int nbLosses = 0;
+        long finishedTicks = 0;
+        for (int i = 0; i < results.length; i++) {
+            SimulationResult result = results[i];
+            sortedScores[i] = result.getScore();
+            switch (result.getOutcome()) {
+                case WIN -> {
+                    nbWins++;
+                    finishedTicks += result.getTicks();
+                }
+                case LOSS -> {
+                    nbLosses++;
+                    finishedTicks += result.getTicks();
+                }
+                default -> {
+                    // Timed out games have no finishing tick
+                }
+            }
+        }
+        Arrays.sort(sortedScores);
+        this.wins = nbWins;
+        this.losses = nbLosses;
+        this.timeouts = games - nbWins - nbLosses;
+        int finished = nbWins + nbLosses;
+        this.meanTicksToFinish = finished == 0 ? 0 : (double) finishedTicks / finished;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getTimeouts() {
+        return timeouts;
+    }
+
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Mean number of ticks of the games that were won or lost
+     *
+     * @return the mean ticks to finish
+     */
+    public double getMeanTicksToFinish() {
+        return meanTicksToFinish;
+    }
+
+    /**
+     * Score percentile using the nearest rank method
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the score at that percentile
+     */
+    public int getScorePercentile(double percentile) {
+        if (sortedScores.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedScores.length);
+        return sortedScores[Math.max(0, Math.min(rank - 1, sortedScores.length - 1))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Games: %d (won %d, lost %d, timed out %d)%n", games, wins, losses, timeouts)
+                + String.format("Win rate: %.2f%%%n", getWinRate() * 100)
+                + String.format("Mean ticks to finish: %.1f%n", meanTicksToFinish)
+                + String.format("Score min/p50/p90/p99/max: %d/%d/%d/%d/%d", getScorePercentile(0),
+                getScorePercentile(50), getScorePercentile(90), getScorePercentile(99), getScorePercentile(100));
+    }
+}
@@ -0,0 +1,104 @@
+package src.simulation;
+
+import src.autoMove.StepFinder;
+import src.mapeditor.util.GameMap;
+import src.utility.EventSink;
+import src.utility.NullSink;
+
+import java.util.List;
+
+/**
+ * Runs a game without JGameGrid. Every level is played on in-memory state as
+ * fast as the CPU allows, with PacMan on auto move, and ends with the same
+ * rules as Game: a hit by a monster loses, eating all pills and gold of the
+ * last level wins.
+ */
+public class HeadlessGame {
+    public static final int DEFAULT_MAX_TICKS = 10000;
+
+    private final List<GameMap> maps;
+    private final int seed;
+    private final int maxTicksPerLevel;
+    private final String movingMethod;
+    private final EventSink log;
+
+    /**
+     * Constructor
+     *
+     * @param maps the levels in playing order
+     * @param seed the random seed for PacMan and the monsters
+     */
+    public HeadlessGame(List<GameMap> maps, int seed) {
+        this(maps, seed, DEFAULT_MAX_TICKS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maps             the levels in playing order
+     * @param seed             the random seed for PacMan and the monsters
+     * @param maxTicksPerLevel ticks after which a level is given up
+     */
+    public HeadlessGame(List<GameMap> maps, int seed, int maxTicksPerLevel) {
+        this(maps, seed, maxTicksPerLevel, StepFinder.DIRECT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maps             the levels in playing order
+     * @param seed             the random seed for PacMan and the monsters
+     * @param maxTicksPerLevel ticks after which a level is given up
+     * @param movingMethod     the auto move of PacMan, see StepFinder
+     */
+    public HeadlessGame(List<GameMap> maps, int seed, int maxTicksPerLevel, String movingMethod) {
+        this(maps, seed, maxTicksPerLevel, movingMethod, new NullSink());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maps             the levels in playing order
+     * @param seed             the random seed for PacMan and the monsters
+     * @param maxTicksPerLevel ticks after which a level is given up
+     * @param movingMethod     the auto move of PacMan, see StepFinder
+     * @param log              where the moves and the result are written
+     */
+    public HeadlessGame(List<GameMap> maps, int seed, int maxTicksPerLevel, String movingMethod, EventSink log) {
+        this.maps = maps;
+        this.seed = seed;
+        this.maxTicksPerLevel = maxTicksPerLevel;
+        this.movingMethod = movingMethod;
+        this.log = log;
+    }
+
+    /**
+     * Play all levels
+     *
+     * @return the result of the game
+     */
+    public SimulationResult run() {
+        int ticks = 0;
+        int score = 0;
+        int levelsCompleted = 0;
+
+        for (GameMap map : maps) {
+            HeadlessLevel level = new HeadlessLevel(map, seed, StepFinder.create(movingMethod), log);
+            while (!level.step() && level.getTicks() < maxTicksPerLevel) {
+                // keep stepping
+            }
+            ticks += level.getTicks();
+            score += level.getScore();
+
+            if (level.hasPacmanBeenHit()) {
+                log.endOfGame("GAME OVER");
+                return new SimulationResult(SimulationResult.Outcome.LOSS, ticks, score, levelsCompleted);
+            } else if (!level.hasPacmanEatAllPills()) {
+                return new SimulationResult(SimulationResult.Outcome.TIMEOUT, ticks, score, levelsCompleted);
+            }
+            levelsCompleted++;
+        }
+        log.endOfGame("YOU WIN");
+        return new SimulationResult(SimulationResult.Outcome.WIN, ticks, score, levelsCompleted);
+    }
+}
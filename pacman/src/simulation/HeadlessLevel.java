@@ -0,0 +1,234 @@
+package src.simulation;
+
+import src.EffectScheduler;
+import src.PacManGameGrid;
+import src.autoMove.StepFinder;
+import src.mapeditor.util.GameMap;
+import src.utility.EventSink;
+import src.utility.NullSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One level of a headless game. Holds the maze as plain integers and steps the
+ * same rules as the windowed game, one actor round per tick, without any
+ * rendering.
+ */
+public class HeadlessLevel {
+    // Directions in the same order as the actor angles (0, 90, 180, 270 degrees)
+    static final int EAST = 0;
+    static final int SOUTH = 1;
+    static final int WEST = 2;
+    static final int NORTH = 3;
+    static final int[] DX = {1, 0, -1, 0};
+    static final int[] DY = {0, 1, 0, -1};
+
+    // Actors act every third simulation cycle of 100 ms in the windowed game
+    static final int ACT_PERIOD_MS = 300;
+    private static final int TX5_FREEZE_SECONDS = 5;
+
+    private final int width;
+    private final int height;
+    private final PacManGameGrid grid;
+    private final int maxPillsAndItems;
+
+    private final HeadlessPacman pacman;
+    private final List<HeadlessMonster> monsters = new ArrayList<>();
+    private final EffectScheduler effectScheduler = new EffectScheduler();
+    private final EventSink log;
+
+    private int ticks = 0;
+    private boolean hasPacmanBeenHit = false;
+    private boolean hasPacmanEatAllPills = false;
+
+    /**
+     * Constructor
+     *
+     * @param map  the level map
+     * @param seed the random seed shared by all actors
+     */
+    public HeadlessLevel(GameMap map, int seed) {
+        this(map, seed, StepFinder.create(StepFinder.DIRECT));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param map        the level map
+     * @param seed       the random seed shared by all actors
+     * @param stepFinder the search PacMan uses to find the closest item
+     */
+    public HeadlessLevel(GameMap map, int seed, StepFinder stepFinder) {
+        this(map, seed, stepFinder, new NullSink());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param map        the level map
+     * @param seed       the random seed shared by all actors
+     * @param stepFinder the search PacMan uses to find the closest item
+     * @param log        where the moves are written, as GameCallback does in the windowed game
+     */
+    public HeadlessLevel(GameMap map, int seed, StepFinder stepFinder, EventSink log) {
+        this.log = log;
+        this.grid = new PacManGameGrid(map.getNbHorzCells(), map.getNbVertCells(), map.getMap());
+        this.width = grid.getNbHorzCells();
+        this.height = grid.getNbVertCells();
+        this.maxPillsAndItems = grid.getCellCount(PacManGameGrid.PILL) + grid.getCellCount(PacManGameGrid.GOLD);
+
+        HeadlessPacman pac = null;
+        for (Map.Entry<String, List<int[]>> entry : map.getActors().entrySet()) {
+            for (int[] loc : entry.getValue()) {
+                switch (entry.getKey()) {
+                    case "pacman" -> pac = new HeadlessPacman(this, loc[0], loc[1], seed, stepFinder);
+                    case "TX5" -> {
+                        HeadlessMonster tx5 = new HeadlessMonster(this, HeadlessMonster.Type.TX5,
+                                loc[0], loc[1], seed);
+                        tx5.stopMoving(TX5_FREEZE_SECONDS * 1000 / ACT_PERIOD_MS + 1);
+                        monsters.add(tx5);
+                    }
+                    case "Troll" -> monsters.add(new HeadlessMonster(this, HeadlessMonster.Type.Troll,
+                            loc[0], loc[1], seed));
+                }
+            }
+        }
+        if (pac == null) {
+            throw new IllegalArgumentException("Level has no start for PacMan");
+        }
+        this.pacman = pac;
+    }
+
+    /**
+     * Play one tick: PacMan moves, then every monster, then the end of level is checked
+     * and the timed effects that are due are run.
+     *
+     * @return true if the level is over
+     */
+    public boolean step() {
+        if (isOver()) {
+            return true;
+        }
+        ticks++;
+        pacman.act();
+        for (HeadlessMonster monster : monsters) {
+            monster.act();
+        }
+
+        for (HeadlessMonster monster : monsters) {
+            if (monster.getX() == pacman.getX() && monster.getY() == pacman.getY()) {
+                hasPacmanBeenHit = true;
+            }
+        }
+        hasPacmanEatAllPills = pacman.getNbPills() >= maxPillsAndItems;
+        effectScheduler.tick();
+        return isOver();
+    }
+
+    public boolean isOver() {
+        return hasPacmanBeenHit || hasPacmanEatAllPills;
+    }
+
+    public boolean hasPacmanBeenHit() {
+        return hasPacmanBeenHit;
+    }
+
+    public boolean hasPacmanEatAllPills() {
+        return hasPacmanEatAllPills;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getScore() {
+        return pacman.getScore();
+    }
+
+    public int getNbPills() {
+        return pacman.getNbPills();
+    }
+
+    EventSink getLog() {
+        return log;
+    }
+
+    EffectScheduler getEffectScheduler() {
+        return effectScheduler;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    PacManGameGrid getGrid() {
+        return grid;
+    }
+
+    HeadlessPacman getPacman() {
+        return pacman;
+    }
+
+    /**
+     * Check if an actor can move to the cell
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return true if the cell is inside the maze and not a wall
+     */
+    boolean canMove(int x, int y) {
+        return grid.canMove(x, y);
+    }
+
+    boolean isInside(int x, int y) {
+        return grid.isInside(x, y);
+    }
+
+    int getCell(int x, int y) {
+        return grid.getCell(x, y);
+    }
+
+    void clearCell(int x, int y) {
+        grid.setCell(grid.getCellIndex(x, y), PacManGameGrid.PATH);
+    }
+
+    /**
+     * Get the other end of a portal
+     *
+     * @param index the cell index of the portal
+     * @return the cell index of the other end, or -1 if the cell is not a portal
+     */
+    int getPortalPartner(int index) {
+        return grid.getPortalPartner(index);
+    }
+
+    /**
+     * Same as Location.get4CompassDirectionTo, on plain coordinates
+     *
+     * @param fromX column of the start
+     * @param fromY row of the start
+     * @param toX   column of the target
+     * @param toY   row of the target
+     * @return one of EAST, SOUTH, WEST, NORTH
+     */
+    static int compassDirectionTo(int fromX, int fromY, int toX, int toY) {
+        double angle = Math.toDegrees(Math.atan2(toY - fromY, toX - fromX));
+        if (angle < 0) {
+            angle += 360;
+        }
+        if (angle > 315 || angle <= 45) {
+            return EAST;
+        } else if (angle <= 135) {
+            return SOUTH;
+        } else if (angle <= 225) {
+            return WEST;
+        }
+        return NORTH;
+    }
+}
@@ -0,0 +1,144 @@
+package src.simulation;
+
+import src.EffectScheduler;
+
+import java.util.Random;
+
+import static src.simulation.HeadlessLevel.*;
+
+/**
+ * Headless counterpart of Monster, following the same walking approach.
+ */
+class HeadlessMonster {
+    /**
+     * Same kinds as MonsterType, kept separate so no sprite code is loaded
+     */
+    enum Type {
+        Troll,
+        TX5
+    }
+
+    private static final int listLength = 10;
+
+    private final HeadlessLevel level;
+    private final Type type;
+    private final Random randomiser;
+    private final VisitedList visitedList = new VisitedList(listLength);
+    private int x;
+    private int y;
+    // Monsters are added facing north
+    private int direction = NORTH;
+    private boolean stopMoving = false;
+    private long stopMovingUntil = 0;
+
+    /**
+     * Constructor
+     *
+     * @param level the level the monster walks in
+     * @param type  the kind of monster
+     * @param x     the starting column
+     * @param y     the starting row
+     * @param seed  the random seed
+     */
+    HeadlessMonster(HeadlessLevel level, Type type, int x, int y, int seed) {
+        this.level = level;
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.randomiser = new Random(seed);
+    }
+
+    /**
+     * Freeze the monster
+     *
+     * @param ticks number of ticks the monster stays still
+     */
+    void stopMoving(int ticks) {
+        EffectScheduler effects = level.getEffectScheduler();
+        stopMovingUntil = Math.max(stopMovingUntil, effects.getTick() + ticks);
+        stopMoving = true;
+        effects.schedule(ticks, () -> {
+            if (effects.getTick() >= stopMovingUntil) {
+                stopMoving = false;
+            }
+        });
+    }
+
+    void act() {
+        if (stopMoving) {
+            return;
+        }
+        walkApproach();
+    }
+
+    /**
+     * Same steps as Monster.walkApproach
+     */
+    private void walkApproach() {
+        HeadlessPacman pacman = level.getPacman();
+        int oldDirection = direction;
+        // If the monster is on a portal, move it to the other portal.
+        int partner = level.getPortalPartner(y * level.getWidth() + x);
+        if (partner >= 0) {
+            x = partner % level.getWidth();
+            y = partner / level.getWidth();
+        }
+
+        // TX5: Determine direction to PacMan and try to move in that direction. Otherwise, random walk.
+        // Troll: Random walk.
+        direction = compassDirectionTo(x, y, pacman.getX(), pacman.getY());
+        int nextX = x + DX[direction];
+        int nextY = y + DY[direction];
+        if (type == Type.TX5 && !visitedList.contains(nextX, nextY) && level.canMove(nextX, nextY)) {
+            setLocation(nextX, nextY);
+        } else {
+            int sign = randomiser.nextDouble() < 0.5 ? 1 : -1;
+            direction = HeadlessPacman.turn(oldDirection, sign);
+            nextX = x + DX[direction];
+            nextY = y + DY[direction];
+            if (level.canMove(nextX, nextY)) {
+                setLocation(nextX, nextY);
+            } else {
+                direction = oldDirection;
+                nextX = x + DX[direction];
+                nextY = y + DY[direction];
+                if (level.canMove(nextX, nextY)) {
+                    setLocation(nextX, nextY);
+                } else {
+                    direction = HeadlessPacman.turn(oldDirection, -sign);
+                    nextX = x + DX[direction];
+                    nextY = y + DY[direction];
+                    if (level.canMove(nextX, nextY)) {
+                        setLocation(nextX, nextY);
+                    } else {
+                        direction = HeadlessPacman.turn(oldDirection, 2);
+                        nextX = x + DX[direction];
+                        nextY = y + DY[direction];
+                        setLocation(nextX, nextY);
+                    }
+                }
+            }
+        }
+        level.getLog().monsterLocationChanged(type.name(), x, y);
+        visitedList.add(nextX, nextY);
+    }
+
+    private void setLocation(int nextX, int nextY) {
+        if (level.isInside(nextX, nextY)) {
+            x = nextX;
+            y = nextY;
+        }
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    int getX() {
+        return x;
+    }
+
+    int getY() {
+        return y;
+    }
+}
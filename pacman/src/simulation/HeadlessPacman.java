@@ -0,0 +1,150 @@
+package src.simulation;
+
+import src.PacManGameGrid;
+import src.autoMove.StepFinder;
+
+import java.util.Random;
+
+import static src.simulation.HeadlessLevel.*;
+
+/**
+ * Headless counterpart of PacActor in auto mode. Follows the DirectMethod
+ * rules: walk the shortest path to the closest item, avoiding recently
+ * visited cells with a random turn.
+ */
+class HeadlessPacman {
+    private static final int listLength = 100;
+
+    private final HeadlessLevel level;
+    private final Random randomiser;
+    private final StepFinder stepFinder;
+    private final VisitedList visitedList = new VisitedList(listLength);
+    private int x;
+    private int y;
+    private int direction = EAST;
+    private int nextX;
+    private int nextY;
+    private int nbPills = 0;
+    private int score = 0;
+
+    /**
+     * Constructor
+     *
+     * @param level      the level PacMan plays in
+     * @param x          the starting column
+     * @param y          the starting row
+     * @param seed       the random seed
+     * @param stepFinder the search used to find the closest item
+     */
+    HeadlessPacman(HeadlessLevel level, int x, int y, int seed, StepFinder stepFinder) {
+        this.level = level;
+        this.x = x;
+        this.y = y;
+        this.randomiser = new Random(seed);
+        this.stepFinder = stepFinder;
+    }
+
+    /**
+     * Same steps as PacActor.act in auto mode
+     */
+    void act() {
+        getNext();
+        if (level.isInside(nextX, nextY)) {
+            x = nextX;
+            y = nextY;
+            onPortal(nextX, nextY);
+            eatPill(nextX, nextY);
+        }
+        visitedList.add(nextX, nextY);
+        level.getLog().pacManLocationChanged(x, y, score, nbPills);
+    }
+
+    /**
+     * Pick the next cell into nextX and nextY, as DirectMethod.getNext does
+     */
+    private void getNext() {
+        int width = level.getWidth();
+        int target = stepFinder.findFirstStep(level.getGrid(), y * width + x);
+        int targetX = target % width;
+        int targetY = target / width;
+
+        int oldDirection = direction;
+        direction = compassDirectionTo(x, y, targetX, targetY);
+        nextX = x + DX[direction];
+        nextY = y + DY[direction];
+
+        if (visitedList.contains(nextX, nextY) || !level.canMove(nextX, nextY)) {
+            int sign = randomiser.nextDouble() < 0.5 ? 1 : -1;
+            direction = turn(oldDirection, sign);
+            nextX = x + DX[direction];
+            nextY = y + DY[direction];
+            if (!level.canMove(nextX, nextY)) {
+                direction = oldDirection;
+                nextX = x + DX[direction];
+                nextY = y + DY[direction];
+                if (!level.canMove(nextX, nextY)) {
+                    direction = turn(oldDirection, -sign);
+                    nextX = x + DX[direction];
+                    nextY = y + DY[direction];
+                    if (!level.canMove(nextX, nextY)) {
+                        direction = turn(oldDirection, 2);
+                        nextX = x + DX[direction];
+                        nextY = y + DY[direction];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Move to the other end if PacMan stepped on a portal
+     */
+    private void onPortal(int px, int py) {
+        int partner = level.getPortalPartner(py * level.getWidth() + px);
+        if (partner >= 0) {
+            x = partner % level.getWidth();
+            y = partner / level.getWidth();
+        }
+    }
+
+    /**
+     * Eat the pill or item on the cell, as PacActor.eatPill does
+     */
+    private void eatPill(int px, int py) {
+        int cell = level.getCell(px, py);
+        if (cell == PacManGameGrid.PILL) {
+            nbPills++;
+            score++;
+            level.clearCell(px, py);
+            level.getLog().pacManEatPillsAndItems(px, py, "pills");
+        } else if (cell == PacManGameGrid.GOLD) {
+            nbPills++;
+            score += 5;
+            level.clearCell(px, py);
+            level.getLog().pacManEatPillsAndItems(px, py, "gold");
+        } else if (cell == PacManGameGrid.ICE) {
+            level.clearCell(px, py);
+            level.getLog().pacManEatPillsAndItems(px, py, "ice");
+        }
+    }
+
+    static int turn(int direction, int quarterTurns) {
+        return Math.floorMod(direction + quarterTurns, 4);
+    }
+
+    int getX() {
+        return x;
+    }
+
+    int getY() {
+        return y;
+    }
+
+    int getNbPills() {
+        return nbPills;
+    }
+
+    int getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,60 @@
+package src.simulation;
+
+/**
+ * The outcome of a headless game run
+ */
+public class SimulationResult {
+    /**
+     * How a headless game finished
+     */
+    public enum Outcome {
+        WIN,
+        LOSS,
+        TIMEOUT
+    }
+
+    private final Outcome outcome;
+    private final int ticks;
+    private final int score;
+    private final int levelsCompleted;
+
+    /**
+     * Constructor
+     *
+     * @param outcome         how the game finished
+     * @param ticks           number of ticks played over all levels
+     * @param score           score collected over all levels
+     * @param levelsCompleted number of levels cleared
+     */
+    public SimulationResult(Outcome outcome, int ticks, int score, int levelsCompleted) {
+        this.outcome = outcome;
+        this.ticks = ticks;
+        this.score = score;
+        this.levelsCompleted = levelsCompleted;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isWin() {
+        return outcome == Outcome.WIN;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLevelsCompleted() {
+        return levelsCompleted;
+    }
+
+    @Override
+    public String toString() {
+        return outcome + " after " + ticks + " ticks. Score: " + score + ". Levels completed: " + levelsCompleted;
+    }
+}
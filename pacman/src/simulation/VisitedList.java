@@ -0,0 +1,59 @@
+package src.simulation;
+
+/**
+ * Fixed size history of visited locations, mirroring the visited lists kept by
+ * PacActor and Monster without allocating a Location per step.
+ */
+class VisitedList {
+    private final int[] xs;
+    private final int[] ys;
+    private final int listLength;
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * Constructor
+     *
+     * @param listLength the list length used by the mirrored actor
+     */
+    VisitedList(int listLength) {
+        this.listLength = listLength;
+        this.xs = new int[listLength];
+        this.ys = new int[listLength];
+    }
+
+    /**
+     * Add a location, dropping the oldest once the list is full
+     *
+     * @param x the column of the location
+     * @param y the row of the location
+     */
+    void add(int x, int y) {
+        int tail = (head + size) % listLength;
+        xs[tail] = x;
+        ys[tail] = y;
+        size++;
+        // Same behaviour as the actors: the oldest entry is removed when the size reaches the length
+        if (size == listLength) {
+            head = (head + 1) % listLength;
+            size--;
+        }
+    }
+
+    /**
+     * Check if a location is in the list
+     *
+     * @param x the column of the location
+     * @param y the row of the location
+     * @return true if the location has been visited recently
+     */
+    boolean contains(int x, int y) {
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % listLength;
+            if (xs[index] == x && ys[index] == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
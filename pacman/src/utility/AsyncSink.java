@@ -0,0 +1,255 @@
+package src.utility;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sink that hands the events to another sink on a background thread. The game
+ * only copies the values of an event into a bounded ring buffer; the writer
+ * passes them on in batches and flushes the target every flush period and at
+ * the end of the game.
+ * <p>
+ * When the ring buffer is full the game waits for the writer to catch up, so no
+ * event is ever lost.
+ */
+public class AsyncSink implements EventSink {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final long DEFAULT_FLUSH_PERIOD_MS = 200;
+
+    // Kinds of events in the ring buffer
+    private static final int STRING = 0;
+    private static final int PACMAN_LOCATION = 1;
+    private static final int MONSTER_LOCATION = 2;
+    private static final int EAT_PILL_OR_ITEM = 3;
+    private static final int END_OF_GAME = 4;
+
+    // Ring buffer, one event per slot. Slots between tail and head belong to the writer.
+    private final int mask;
+    private final int[] kinds;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] scores;
+    private final int[] nbPills;
+    private final String[] texts;
+    private long head = 0;
+    private long tail = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private long flushTarget = 0;
+    private long flushedUpTo = 0;
+    private boolean isClosed = false;
+
+    private final EventSink target;
+    private final long flushPeriodNanos;
+    private final Thread writer;
+
+    public AsyncSink(EventSink target) {
+        this(target, DEFAULT_CAPACITY, DEFAULT_FLUSH_PERIOD_MS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param target        the sink the events are written to
+     * @param capacity      number of events the ring buffer holds, rounded up to a power of two
+     * @param flushPeriodMs longest time a written event waits before the target is flushed
+     */
+    public AsyncSink(EventSink target, int capacity, long flushPeriodMs) {
+        this.target = target;
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.kinds = new int[size];
+        this.xs = new int[size];
+        this.ys = new int[size];
+        this.scores = new int[size];
+        this.nbPills = new int[size];
+        this.texts = new String[size];
+        this.flushPeriodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(flushPeriodMs, 1));
+        writer = new Thread(this::writeLoop, "Event sink writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void writeLine(String line) {
+        put(STRING, 0, 0, 0, 0, line);
+    }
+
+    @Override
+    public void pacManLocationChanged(int x, int y, int score, int nbPills) {
+        put(PACMAN_LOCATION, x, y, score, nbPills, null);
+    }
+
+    @Override
+    public void monsterLocationChanged(String type, int x, int y) {
+        put(MONSTER_LOCATION, x, y, 0, 0, type);
+    }
+
+    @Override
+    public void pacManEatPillsAndItems(int x, int y, String type) {
+        put(EAT_PILL_OR_ITEM, x, y, 0, 0, type);
+    }
+
+    @Override
+    public void endOfGame(String gameResult) {
+        put(END_OF_GAME, 0, 0, 0, 0, gameResult);
+        flush();
+    }
+
+    /**
+     * Wait until every event given so far is written and the target flushed
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            flushTarget = Math.max(flushTarget, head);
+            notEmpty.signal();
+            while (flushedUpTo < flushTarget && !isClosed) {
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush the remaining events, stop the writer thread and close the target.
+     * The target is closed when this returns.
+     */
+    @Override
+    public void close() {
+        flush();
+        lock.lock();
+        try {
+            isClosed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        boolean isInterrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                // Still wait for the target to be closed, and keep the interrupt for the caller
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void put(int kind, int x, int y, int score, int pills, String text) {
+        lock.lock();
+        try {
+            while (head - tail > mask && !isClosed) {
+                notFull.awaitUninterruptibly();
+            }
+            if (isClosed) {
+                return;
+            }
+            int slot = (int) (head & mask);
+            kinds[slot] = kind;
+            xs[slot] = x;
+            ys[slot] = y;
+            scores[slot] = score;
+            nbPills[slot] = pills;
+            texts[slot] = text;
+            head++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        long nextFlush = 0;
+        boolean isDirty = false;
+        while (true) {
+            long from;
+            long to;
+            boolean mustFlush;
+            boolean wasInterrupted = false;
+            lock.lock();
+            try {
+                // Sleep until there are events, a flush is asked for or the flush period is over
+                while (head == tail && flushTarget <= flushedUpTo && !isClosed) {
+                    if (!isDirty) {
+                        notEmpty.awaitUninterruptibly();
+                    } else {
+                        long wait = nextFlush - System.nanoTime();
+                        if (wait <= 0) {
+                            break;
+                        }
+                        try {
+                            notEmpty.awaitNanos(wait);
+                        } catch (InterruptedException e) {
+                            // Stop waiting and flush now, waiting again would throw at once
+                            wasInterrupted = true;
+                            break;
+                        }
+                    }
+                }
+                if (head == tail && isClosed) {
+                    break;
+                }
+                from = tail;
+                to = head;
+            } finally {
+                lock.unlock();
+            }
+
+            // Write outside the lock, the game only fills slots the writer has given back
+            for (long i = from; i < to; i++) {
+                writeEvent((int) (i & mask));
+            }
+            if (!isDirty && to > from) {
+                isDirty = true;
+                nextFlush = System.nanoTime() + flushPeriodNanos;
+            }
+
+            lock.lock();
+            try {
+                tail = to;
+                notFull.signalAll();
+                mustFlush = flushTarget > flushedUpTo || isClosed || wasInterrupted
+                        || System.nanoTime() - nextFlush >= 0;
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustFlush) {
+                if (isDirty) {
+                    target.flush();
+                    isDirty = false;
+                }
+                lock.lock();
+                try {
+                    flushedUpTo = to;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        target.close();
+    }
+
+    private void writeEvent(int slot) {
+        String text = texts[slot];
+        texts[slot] = null;
+        switch (kinds[slot]) {
+            case PACMAN_LOCATION -> target.pacManLocationChanged(xs[slot], ys[slot], scores[slot], nbPills[slot]);
+            case MONSTER_LOCATION -> target.monsterLocationChanged(text, xs[slot], ys[slot]);
+            case EAT_PILL_OR_ITEM -> target.pacManEatPillsAndItems(xs[slot], ys[slot], text);
+            case END_OF_GAME -> target.endOfGame(text);
+            default -> target.writeLine(text);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package src.utility;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a log written by BinarySink and replays its events into another sink.
+ * Replayed into a FileSink it gives the same bytes as Log.txt.
+ * <p>
+ * Usage: java src.utility.BinaryLogDecoder &lt;binary log&gt; [text log, Log.txt by default]
+ */
+public class BinaryLogDecoder {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final List<String> names = new ArrayList<>();
+    private final MonsterPositions monsters = new MonsterPositions();
+    private int pacmanX = 0;
+    private int pacmanY = 0;
+    private int score = 0;
+    private int nbPills = 0;
+
+    private BinaryLogDecoder(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Replay a binary log
+     *
+     * @param in   the binary log
+     * @param sink where the events are written
+     * @throws IOException if the log cannot be read or is not a binary log
+     */
+    public static void decode(InputStream in, EventSink sink) throws IOException {
+        new BinaryLogDecoder(in).replay(sink);
+    }
+
+    /**
+     * Turn a binary log file into a text log file
+     *
+     * @param binaryLog the file written by BinarySink
+     * @param textLog   the text file to write
+     * @throws IOException if the log cannot be read or is not a binary log
+     */
+    public static void decode(File binaryLog, File textLog) throws IOException {
+        FileSink sink = new FileSink(textLog, false);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(binaryLog), BUFFER_SIZE)) {
+            decode(in, sink);
+        } finally {
+            sink.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: BinaryLogDecoder <binary log> [text log]");
+            return;
+        }
+        String textLog = args.length == 2 ? args[1] : GameCallback.LOG_FILE_PATH;
+        try {
+            decode(new File(args[0]), new File(textLog));
+        } catch (IOException e) {
+            System.out.println("Cannot decode " + args[0] + ": " + e.getMessage());
+        }
+    }
+
+    private void replay(EventSink sink) throws IOException {
+        byte[] magic = in.readNBytes(BinarySink.MAGIC.length);
+        if (!Arrays.equals(magic, BinarySink.MAGIC) || in.read() != BinarySink.VERSION) {
+            throw new IOException("Not a binary log");
+        }
+        int kind;
+        while ((kind = in.read()) != -1) {
+            switch (kind) {
+                case BinarySink.TEXT -> sink.writeLine(readString());
+                case BinarySink.PACMAN_LOCATION -> {
+                    pacmanX += readSigned();
+                    pacmanY += readSigned();
+                    score += readSigned();
+                    nbPills += readSigned();
+                    sink.pacManLocationChanged(pacmanX, pacmanY, score, nbPills);
+                    monsters.startTick();
+                }
+                case BinarySink.MONSTER_LOCATION -> {
+                    int id = readNameId();
+                    int[] position = monsters.next(id);
+                    position[0] += readSigned();
+                    position[1] += readSigned();
+                    sink.monsterLocationChanged(names.get(id), position[0], position[1]);
+                }
+                case BinarySink.EAT_PILL_OR_ITEM -> {
+                    int id = readNameId();
+                    int x = pacmanX + readSigned();
+                    int y = pacmanY + readSigned();
+                    sink.pacManEatPillsAndItems(x, y, names.get(id));
+                }
+                case BinarySink.END_OF_GAME -> sink.endOfGame(readString());
+                case BinarySink.NAME -> names.add(readString());
+                default -> throw new IOException("Unknown record kind " + kind);
+            }
+        }
+    }
+
+    private int readNameId() throws IOException {
+        int id = readUnsigned();
+        if (id >= names.size()) {
+            throw new IOException("Undefined name " + id);
+        }
+        return id;
+    }
+
+    private String readString() throws IOException {
+        int length = readUnsigned();
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated binary log");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readSigned() throws IOException {
+        int value = readUnsigned();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readUnsigned() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Truncated binary log");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
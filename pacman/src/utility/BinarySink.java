@@ -0,0 +1,198 @@
+package src.utility;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sink that writes the events as compact binary records instead of text.
+ * Locations, scores and pill counts are stored as zig-zag varint deltas to the
+ * previous record of the same actor, so a move usually takes five bytes instead
+ * of a forty byte line. Monsters of the same kind are told apart by the order of
+ * their reports in the tick, see MonsterPositions. BinaryLogDecoder turns the file back into Log.txt.
+ * <p>
+ * Layout: the magic bytes and a version byte, then records made of a kind byte
+ * followed by its fields. Names of monsters and items are defined once by a
+ * NAME record and then referred to by their number.
+ */
+public class BinarySink implements EventSink {
+    static final byte[] MAGIC = {'P', 'M', 'L', 'G'};
+    static final int VERSION = 2;
+
+    // Kinds of records
+    static final int TEXT = 0;
+    static final int PACMAN_LOCATION = 1;
+    static final int MONSTER_LOCATION = 2;
+    static final int EAT_PILL_OR_ITEM = 3;
+    static final int END_OF_GAME = 4;
+    static final int NAME = 5;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private OutputStream out = null;
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final MonsterPositions monsters = new MonsterPositions();
+    private int pacmanX = 0;
+    private int pacmanY = 0;
+    private int score = 0;
+    private int nbPills = 0;
+
+    public BinarySink(File file) {
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+            out.write(MAGIC);
+            out.write(VERSION);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            out = null;
+        }
+    }
+
+    @Override
+    public synchronized void writeLine(String line) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.write(TEXT);
+            writeString(line);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void pacManLocationChanged(int x, int y, int score, int nbPills) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.write(PACMAN_LOCATION);
+            writeSigned(x - pacmanX);
+            writeSigned(y - pacmanY);
+            writeSigned(score - this.score);
+            writeSigned(nbPills - this.nbPills);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        pacmanX = x;
+        pacmanY = y;
+        this.score = score;
+        this.nbPills = nbPills;
+        monsters.startTick();
+    }
+
+    @Override
+    public synchronized void monsterLocationChanged(String type, int x, int y) {
+        if (out == null) {
+            return;
+        }
+        try {
+            int id = nameId(type);
+            out.write(MONSTER_LOCATION);
+            writeUnsigned(id);
+            int[] last = monsters.next(id);
+            writeSigned(x - last[0]);
+            writeSigned(y - last[1]);
+            last[0] = x;
+            last[1] = y;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void pacManEatPillsAndItems(int x, int y, String type) {
+        if (out == null) {
+            return;
+        }
+        try {
+            int id = nameId(type);
+            // Items are eaten where PacMan last was or next to it
+            out.write(EAT_PILL_OR_ITEM);
+            writeUnsigned(id);
+            writeSigned(x - pacmanX);
+            writeSigned(y - pacmanY);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void endOfGame(String gameResult) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.write(END_OF_GAME);
+            writeString(gameResult);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out = null;
+    }
+
+    /**
+     * Number of a name, defining it in the log the first time it is used
+     */
+    private int nameId(String name) throws IOException {
+        Integer id = nameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = nameIds.size();
+        nameIds.put(name, newId);
+        out.write(NAME);
+        writeString(name);
+        return newId;
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsigned(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeSigned(int value) throws IOException {
+        // Zig-zag, so small negative deltas stay small
+        writeUnsigned((value << 1) ^ (value >> 31));
+    }
+
+    private void writeUnsigned(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,43 @@
+package src.utility;
+
+/**
+ * Destination of the game events written by GameCallback. A sink gets the raw
+ * values of every event; by default they are turned into the Log.txt lines of
+ * LogFormat and given to writeLine.
+ */
+public interface EventSink {
+    /**
+     * Write one line of text
+     *
+     * @param line the line, without line separator
+     */
+    void writeLine(String line);
+
+    default void pacManLocationChanged(int x, int y, int score, int nbPills) {
+        writeLine(LogFormat.pacManLocationChanged(x, y, score, nbPills));
+    }
+
+    default void monsterLocationChanged(String type, int x, int y) {
+        writeLine(LogFormat.monsterLocationChanged(type, x, y));
+    }
+
+    default void pacManEatPillsAndItems(int x, int y, String type) {
+        writeLine(LogFormat.pacManEatPillsAndItems(x, y, type));
+    }
+
+    /**
+     * Write the result of the game and make everything written so far durable
+     *
+     * @param gameResult the result, such as "YOU WIN"
+     */
+    default void endOfGame(String gameResult) {
+        writeLine(gameResult);
+        flush();
+    }
+
+    default void flush() {
+    }
+
+    default void close() {
+    }
+}
@@ -0,0 +1,87 @@
+package src.utility;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Sink that writes the lines to a text file, truncated when the sink is created.
+ * One file per game keeps batch runs from sharing Log.txt.
+ */
+public class FileSink implements EventSink {
+    private Writer fileWriter = null;
+    private final boolean flushEachLine;
+
+    /**
+     * Constructor
+     *
+     * @param file          the file to write
+     * @param flushEachLine true to flush after every line, as Log.txt always was
+     */
+    public FileSink(File file, boolean flushEachLine) {
+        this.flushEachLine = flushEachLine;
+        try {
+            fileWriter = openWriter(file);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    public FileSink(String path) {
+        this(new File(path), true);
+    }
+
+    /**
+     * Open the writer of the file
+     *
+     * @param file the file to write
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    protected Writer openWriter(File file) throws IOException {
+        return new BufferedWriter(new FileWriter(file));
+    }
+
+    @Override
+    public synchronized void writeLine(String line) {
+        if (fileWriter == null) {
+            return;
+        }
+        try {
+            fileWriter.write(line);
+            fileWriter.write("\n");
+            if (flushEachLine) {
+                fileWriter.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (fileWriter == null) {
+            return;
+        }
+        try {
+            fileWriter.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fileWriter == null) {
+            return;
+        }
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        fileWriter = null;
+    }
+}
@@ -0,0 +1,33 @@
+package src.utility;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * File sink that compresses the lines as a GZIP stream, for long batch runs.
+ * A flush makes the data written so far readable by a decompressor.
+ */
+public class GzipSink extends FileSink {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public GzipSink(File file) {
+        super(file, false);
+    }
+
+    @Override
+    protected Writer openWriter(File file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out, BUFFER_SIZE, true)),
+                    BUFFER_SIZE);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package src.utility;
+
+/**
+ * The lines of Log.txt. The tests compare the log byte for byte, so these
+ * formats must not change.
+ */
+public final class LogFormat {
+    private LogFormat() {
+    }
+
+    public static String pacManLocationChanged(int x, int y, int score, int nbPills) {
+        return String.format("[PacMan] Location: %d-%d. Score: %d. Pills: %d", x, y, score, nbPills);
+    }
+
+    public static String monsterLocationChanged(String type, int x, int y) {
+        return String.format("[%s] Location: %d-%d", type, x, y);
+    }
+
+    public static String pacManEatPillsAndItems(int x, int y, String type) {
+        // The row is printed in place of the column as well, the expected logs depend on it
+        return String.format("[PacMan] Location: %d-%d. Eat Pill/Item: %s", y, y, type);
+    }
+}
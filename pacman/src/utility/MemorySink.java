@@ -0,0 +1,60 @@
+package src.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sink that keeps the last lines in memory, for tests. Older lines are
+ * overwritten once the capacity is reached.
+ */
+public class MemorySink implements EventSink {
+    private final String[] lines;
+    private long nbLines = 0;
+
+    /**
+     * Constructor
+     *
+     * @param capacity number of most recent lines kept
+     */
+    public MemorySink(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least one line");
+        }
+        this.lines = new String[capacity];
+    }
+
+    @Override
+    public synchronized void writeLine(String line) {
+        lines[(int) (nbLines % lines.length)] = line;
+        nbLines++;
+    }
+
+    /**
+     * Lines still held, oldest first
+     *
+     * @return the kept lines
+     */
+    public synchronized List<String> getLines() {
+        int size = (int) Math.min(nbLines, lines.length);
+        List<String> result = new ArrayList<>(size);
+        for (long i = nbLines - size; i < nbLines; i++) {
+            result.add(lines[(int) (i % lines.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Number of lines written since the sink was created, including the overwritten ones
+     *
+     * @return the number of lines
+     */
+    public synchronized long getNbLines() {
+        return nbLines;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(lines, null);
+        nbLines = 0;
+    }
+}
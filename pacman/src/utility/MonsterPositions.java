@@ -0,0 +1,48 @@
+package src.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Last position of every monster, the base of the deltas of a binary log. BinarySink
+ * and BinaryLogDecoder keep one each and update them the same way.
+ * <p>
+ * A map can have several monsters of one kind. The monsters report in the same order
+ * every tick, so a monster is told apart from the others of its kind by the order of
+ * its report since PacMan last reported.
+ */
+class MonsterPositions {
+    // Position {x, y} of every monster, by name id and then by order in the tick
+    private final List<List<int[]>> positions = new ArrayList<>();
+    // Reports of every name id since PacMan last reported
+    private int[] reports = new int[4];
+
+    /**
+     * Called when PacMan reports, before the monsters of the tick
+     */
+    void startTick() {
+        Arrays.fill(reports, 0);
+    }
+
+    /**
+     * Position of the monster that reports now
+     *
+     * @param nameId number of the name of the monster
+     * @return its last position as {x, y}, to be updated with the new one
+     */
+    int[] next(int nameId) {
+        while (positions.size() <= nameId) {
+            positions.add(new ArrayList<>());
+        }
+        if (nameId >= reports.length) {
+            reports = Arrays.copyOf(reports, Math.max(reports.length * 2, nameId + 1));
+        }
+        List<int[]> monsters = positions.get(nameId);
+        int order = reports[nameId]++;
+        if (order == monsters.size()) {
+            monsters.add(new int[2]);
+        }
+        return monsters.get(order);
+    }
+}
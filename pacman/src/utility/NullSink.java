@@ -0,0 +1,26 @@
+package src.utility;
+
+/**
+ * Sink that drops every event without formatting it, for benchmarks.
+ */
+public class NullSink implements EventSink {
+    @Override
+    public void writeLine(String line) {
+    }
+
+    @Override
+    public void pacManLocationChanged(int x, int y, int score, int nbPills) {
+    }
+
+    @Override
+    public void monsterLocationChanged(String type, int x, int y) {
+    }
+
+    @Override
+    public void pacManEatPillsAndItems(int x, int y, String type) {
+    }
+
+    @Override
+    public void endOfGame(String gameResult) {
+    }
+}